@@ -17,7 +17,8 @@ import ru.practicum.shareit.user.User;
 @NoArgsConstructor
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private long id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -40,6 +41,25 @@ public class Booking {
     @ToString.Exclude
     private User booker;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private User owner;
+
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+
+    private LocalDateTime created;
+
+    @Version
+    private long version;
+
+    @PrePersist
+    void beforeInsert() {
+        owner = item.getOwner();
+        if (created == null) {
+            created = LocalDateTime.now();
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Data;
+
+@Data
+public class BookingCommand {
+    private final long userId;
+    private final BookingDto booking;
+    private BookingDto result;
+    private RuntimeException error;
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -10,14 +11,39 @@ import java.util.List;
 @RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
+    private final BookingWriteQueue bookingWriteQueue;
 
     @PostMapping()
     public BookingDto addBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                  @Valid @RequestBody BookingDto bookingDto) {
+        if (bookingWriteQueue.isEnabled()) {
+            return bookingWriteQueue.addBooking(userId, bookingDto);
+        }
         return bookingService.addBooking(userId, bookingDto);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResult> addBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                @RequestBody List<BookingDto> bookingDtos) {
+        return bookingService.addBookings(userId, bookingDtos);
+    }
+
+    @PostMapping("/hold")
+    public BookingHoldDto holdBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                      @RequestBody BookingDto bookingDto,
+                                      @RequestParam(required = false, defaultValue = "15") Integer minutes) {
+        return bookingService.holdBooking(userId, bookingDto, minutes);
+    }
+
+    @PostMapping("/hold/{holdId}/confirm")
+    public BookingDto confirmHold(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                  @PathVariable Long holdId) {
+        return bookingService.confirmHold(userId, holdId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto approveBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                      @PathVariable Long bookingId,
@@ -25,6 +51,12 @@ public class BookingController {
         return bookingService.approveBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping()
+    public List<BookingDto> approveBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                            @RequestBody List<BookingDecision> decisions) {
+        return bookingService.approveBookings(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                  @PathVariable Long bookingId) {
@@ -32,18 +64,38 @@ public class BookingController {
     }
 
     @GetMapping()
-    public List<BookingDto> getBookingByBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                              @RequestParam(required = false, defaultValue = "ALL") String state,
-                                              @RequestParam(required = false, defaultValue = "0") Integer from,
-                                              @RequestParam(required = false, defaultValue = "20") Integer size) {
-        return bookingService.getBookingByBooker(userId, state, from, size);
+    public ResponseEntity<List<BookingDto>> getBookingByBooker(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false, defaultValue = "ALL") String state,
+            @RequestParam(required = false, defaultValue = "0") Integer from,
+            @RequestParam(required = false, defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getBookingByBooker(userId, state, from, size));
+        }
+        BookingPage page = bookingService.getBookingByBookerAfter(userId, state, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getBookingByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                              @RequestParam(required = false, defaultValue = "ALL") String state,
-                                              @RequestParam(required = false, defaultValue = "0") Integer from,
-                                              @RequestParam(required = false, defaultValue = "20") Integer size) {
-        return bookingService.getBookingByOwner(userId, state, from, size);
+    public ResponseEntity<List<BookingDto>> getBookingByOwner(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false, defaultValue = "ALL") String state,
+            @RequestParam(required = false, defaultValue = "0") Integer from,
+            @RequestParam(required = false, defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getBookingByOwner(userId, state, from, size));
+        }
+        BookingPage page = bookingService.getBookingByOwnerAfter(userId, state, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
     }
 }
\ No newline at end of file
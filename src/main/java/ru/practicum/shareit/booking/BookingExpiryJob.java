@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Expires WAITING bookings that have already started or that the owner has not answered for too long. Each
+ * sweep works in chunks of ids, each in its own short transaction, so rows are never locked for long.
+ */
+@Component
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Counter expiredRows = Metrics.counter("booking.expiry.rows");
+    private final DistributionSummary sweepRows = Metrics.summary("booking.expiry.sweep.rows");
+    private final Timer sweepTimer = Metrics.timer("booking.expiry.sweep.duration");
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingIntervalIndex bookingIntervalIndex,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${booking.expiry.enabled:true}") boolean enabled,
+                            @Value("${booking.expiry.max-age-hours:72}") long maxAgeHours,
+                            @Value("${booking.expiry.chunk-size:500}") int chunkSize,
+                            @Value("${booking.expiry.max-chunks:100}") int maxChunks) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAge = Duration.ofHours(maxAgeHours);
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+    }
+
+    @Scheduled(initialDelayString = "${booking.expiry.interval-millis:60000}",
+            fixedDelayString = "${booking.expiry.interval-millis:60000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * Runs one sweep and returns the number of bookings it expired.
+     */
+    public int sweep() {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minus(maxAge);
+        int expired = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<Long> ids = bookingRepository.getBookingIdsByStatusStartedOrCreatedBefore(BookingStatus.WAITING,
+                    now, createdBefore, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer updated = transactionTemplate.execute(status ->
+                    bookingRepository.updateStatus(ids, BookingStatus.WAITING, BookingStatus.EXPIRED));
+            expired += updated == null ? 0 : updated;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            bookingIntervalIndex.evictWaiting();
+        }
+        expiredRows.increment(expired);
+        sweepRows.record(expired);
+        sweepTimer.record(Duration.ofNanos(System.nanoTime() - startedAt));
+        return expired;
+    }
+}
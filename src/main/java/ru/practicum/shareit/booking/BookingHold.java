@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.util.HashedWheelTimer;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+public class BookingHold {
+    private final long id;
+    private final long itemId;
+    private final long userId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Instant expiresAt;
+    private HashedWheelTimer.Timeout<BookingHold> timeout;
+
+    void setTimeout(HashedWheelTimer.Timeout<BookingHold> timeout) {
+        this.timeout = timeout;
+    }
+}
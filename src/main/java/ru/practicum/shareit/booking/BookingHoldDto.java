@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingHoldDto {
+    private Long id;
+    private Long itemId;
+    private String start;
+    private String end;
+    private String expiresAt;
+}
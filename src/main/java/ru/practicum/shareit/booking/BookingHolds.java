@@ -0,0 +1,137 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.HashedWheelTimer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Temporary reservations of item dates made during checkout. Holds live only in memory and are dropped by a
+ * hashed wheel timer when their time is up, unless they are confirmed into a booking first.
+ */
+@Component
+public class BookingHolds {
+    private final Clock clock;
+    private final HashedWheelTimer<BookingHold> timer;
+    private final AtomicLong ids = new AtomicLong();
+    private final ConcurrentMap<Long, BookingHold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingHolds(@Value("${booking.hold.tick-millis:1000}") long tickMillis,
+                        @Value("${booking.hold.wheel-size:512}") int wheelSize) {
+        this(Clock.systemDefaultZone(), Duration.ofMillis(tickMillis), wheelSize);
+    }
+
+    BookingHolds(Clock clock, Duration tick, int wheelSize) {
+        this.clock = clock;
+        this.timer = new HashedWheelTimer<>(clock, tick, wheelSize, this::remove);
+    }
+
+    @PostConstruct
+    public void start() {
+        timer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Places a hold unless it overlaps another live hold of the item.
+     */
+    public Optional<BookingHold> tryHold(long itemId, long userId, LocalDateTime start, LocalDateTime end,
+                                         Duration ttl) {
+        BookingHold hold = new BookingHold(ids.incrementAndGet(), itemId, userId, start, end,
+                clock.instant().plus(ttl));
+        AtomicBoolean added = new AtomicBoolean();
+        items.compute(itemId, (id, intervals) -> {
+            ItemIntervals target = intervals != null ? intervals : new ItemIntervals(List.of());
+            added.set(target.tryAdd(new BookingInterval(hold.getId(), start, end), LocalDateTime.MIN));
+            return target.isEmpty() ? null : target;
+        });
+        if (!added.get()) {
+            return Optional.empty();
+        }
+        holds.put(hold.getId(), hold);
+        hold.setTimeout(timer.schedule(hold, hold.getExpiresAt()));
+        return Optional.of(hold);
+    }
+
+    public Optional<BookingHold> get(long holdId) {
+        return Optional.ofNullable(holds.get(holdId));
+    }
+
+    /**
+     * Returns true if no live hold of the item overlaps the dates, apart from the one being confirmed.
+     */
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end, Long ignoredHoldId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            return true;
+        }
+        if (ignoredHoldId == null) {
+            return !intervals.overlaps(start, end);
+        }
+        return intervals.overlapping(start, end).stream()
+            .allMatch(interval -> interval.getBookingId() == ignoredHoldId);
+    }
+
+    /**
+     * Takes a live hold of the user off the timer so that only one caller can confirm it. The dates stay
+     * reserved until the hold is released, or until it expires again after {@link #unclaim}.
+     */
+    public Optional<BookingHold> claim(long holdId, long userId) {
+        BookingHold hold = holds.get(holdId);
+        if (hold == null || hold.getUserId() != userId || !hold.getExpiresAt().isAfter(clock.instant())
+                || !timer.cancel(hold.getTimeout())) {
+            return Optional.empty();
+        }
+        return Optional.of(hold);
+    }
+
+    /**
+     * Puts a claimed hold back on the timer, e.g. when the booking confirming it was rolled back.
+     */
+    public void unclaim(BookingHold hold) {
+        hold.setTimeout(timer.schedule(hold, hold.getExpiresAt()));
+    }
+
+    public void release(BookingHold hold) {
+        timer.cancel(hold.getTimeout());
+        remove(hold);
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    int itemCount() {
+        return items.size();
+    }
+
+    void expireDue() {
+        timer.advance();
+    }
+
+    private void remove(BookingHold hold) {
+        holds.remove(hold.getId());
+        items.computeIfPresent(hold.getItemId(), (id, intervals) -> {
+            intervals.remove(new BookingInterval(hold.getId(), hold.getStart(), hold.getEnd()));
+            return intervals.isEmpty() ? null : intervals;
+        });
+    }
+}
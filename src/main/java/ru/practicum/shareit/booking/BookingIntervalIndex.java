@@ -0,0 +1,192 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of approved bookings per item used for double-booking checks, plus the waiting bookings
+ * shown on the availability calendar. An item is loaded from the bookings table on first use; the index is not
+ * persisted, so it is rebuilt lazily after every restart.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ItemIntervals> waiting = new ConcurrentHashMap<>();
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end) {
+        return !intervalsOf(itemId).overlaps(start, end);
+    }
+
+    /**
+     * Returns the given items that have no approved booking overlapping the dates, in the given order. Items not
+     * in the index yet are loaded with one query per chunk instead of one per item.
+     */
+    public List<Long> filterFree(List<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        List<Long> missing = itemIds.stream()
+            .filter(itemId -> !items.containsKey(itemId))
+            .collect(Collectors.toList());
+        for (int i = 0; i < missing.size(); i += LOAD_CHUNK_SIZE) {
+            loadApproved(missing.subList(i, Math.min(i + LOAD_CHUNK_SIZE, missing.size())));
+        }
+        return itemIds.stream()
+            .filter(itemId -> !intervalsOf(itemId).overlaps(start, end))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds an approved booking unless it overlaps another one. The entry is dropped again if the current
+     * transaction rolls back.
+     */
+    public boolean reserve(Booking booking) {
+        long itemId = booking.getItem().getId();
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getStartDate(), booking.getEndDate());
+        if (!intervalsOf(itemId).tryAdd(interval, horizon())) {
+            return false;
+        }
+        Transactions.onRollback(() -> release(itemId, booking.getId()));
+        return true;
+    }
+
+    /**
+     * Tracks a new waiting booking. Waiting bookings may overlap each other and never block a reservation.
+     */
+    public void addWaiting(Booking booking) {
+        long itemId = booking.getItem().getId();
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getStartDate(), booking.getEndDate());
+        waitingOf(itemId).add(interval);
+        Transactions.onRollback(() -> waitingOf(itemId).remove(interval));
+    }
+
+    /**
+     * Stops tracking a booking that is no longer waiting, e.g. after the owner's decision.
+     */
+    public void removeWaiting(Booking booking) {
+        long itemId = booking.getItem().getId();
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getStartDate(), booking.getEndDate());
+        ItemIntervals intervals = waiting.get(itemId);
+        if (intervals != null && intervals.remove(interval)) {
+            Transactions.onRollback(() -> waitingOf(itemId).add(interval));
+        }
+    }
+
+    /**
+     * Returns the gaps between approved (and optionally waiting) bookings of the item within the given range.
+     * Dates before today are not tracked and are reported as free.
+     */
+    public List<FreeInterval> getFreeIntervals(long itemId, LocalDateTime from, LocalDateTime to,
+                                               boolean includeWaiting) {
+        List<BookingInterval> busy = intervalsOf(itemId).overlapping(from, to);
+        if (includeWaiting) {
+            busy.addAll(waitingOf(itemId).overlapping(from, to));
+            busy.sort(Comparator.comparing(BookingInterval::getStart));
+        }
+        List<FreeInterval> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (BookingInterval interval : busy) {
+            if (interval.getStart().isAfter(cursor)) {
+                free.add(new FreeInterval(cursor, interval.getStart()));
+            }
+            if (interval.getEnd().isAfter(cursor)) {
+                cursor = interval.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new FreeInterval(cursor, to));
+        }
+        return free;
+    }
+
+    /**
+     * Loads the given items up front, so later checks in the same transaction do not query (and auto-flush)
+     * in the middle of a batch.
+     */
+    public void load(Collection<Long> itemIds) {
+        itemIds.forEach(itemId -> {
+            intervalsOf(itemId);
+            waitingOf(itemId);
+        });
+    }
+
+    /**
+     * Returns true if the item is already in the index. Items are evicted when deleted, so a loaded item exists.
+     */
+    public boolean isLoaded(long itemId) {
+        return items.containsKey(itemId);
+    }
+
+    public void release(long itemId, long bookingId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals != null) {
+            intervals.remove(bookingId);
+        }
+    }
+
+    public void evict(long itemId) {
+        items.remove(itemId);
+        waiting.remove(itemId);
+    }
+
+    /**
+     * Drops all waiting bookings; they are reloaded per item on next use. Used after bulk status changes.
+     */
+    public void evictWaiting() {
+        waiting.clear();
+    }
+
+    private void loadApproved(List<Long> itemIds) {
+        LocalDateTime horizon = horizon();
+        Map<Long, List<BookingInterval>> intervals = bookingRepository.getApprovedIntervalsByItems(itemIds, horizon)
+            .stream()
+            .collect(Collectors.groupingBy(ItemBookingInterval::getItemId,
+                    Collectors.mapping(ItemBookingInterval::toBookingInterval, Collectors.toList())));
+        itemIds.forEach(itemId -> items.putIfAbsent(itemId,
+                new ItemIntervals(intervals.getOrDefault(itemId, List.of()), horizon.toLocalDate())));
+    }
+
+    private ItemIntervals intervalsOf(long itemId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            LocalDateTime horizon = horizon();
+            ItemIntervals loaded = new ItemIntervals(bookingRepository.getApprovedIntervals(itemId, horizon),
+                    horizon.toLocalDate());
+            intervals = items.putIfAbsent(itemId, loaded);
+            if (intervals == null) {
+                intervals = loaded;
+            }
+        }
+        return intervals;
+    }
+
+    private ItemIntervals waitingOf(long itemId) {
+        ItemIntervals intervals = waiting.get(itemId);
+        if (intervals == null) {
+            ItemIntervals loaded = new ItemIntervals(bookingRepository.getIntervalsByStatus(itemId,
+                    BookingStatus.WAITING, horizon()));
+            intervals = waiting.putIfAbsent(itemId, loaded);
+            if (intervals == null) {
+                intervals = loaded;
+            }
+        }
+        return intervals;
+    }
+
+    private static LocalDateTime horizon() {
+        return LocalDate.now().atStartOfDay();
+    }
+}
@@ -4,8 +4,12 @@ import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.user.UserDto;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
 
 public class BookingMapper {
     static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
@@ -33,6 +37,48 @@ public class BookingMapper {
         return bookingDto;
     }
 
+    public static BookingDto mapToBookingDto(BookingHold hold) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setItemId(hold.getItemId());
+        bookingDto.setStart(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(hold.getStart()));
+        bookingDto.setEnd(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(hold.getEnd()));
+        return bookingDto;
+    }
+
+    public static BookingHoldDto mapToBookingHoldDto(BookingHold hold) {
+        BookingHoldDto bookingHoldDto = new BookingHoldDto();
+        bookingHoldDto.setId(hold.getId());
+        bookingHoldDto.setItemId(hold.getItemId());
+        bookingHoldDto.setStart(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(hold.getStart()));
+        bookingHoldDto.setEnd(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(hold.getEnd()));
+        bookingHoldDto.setExpiresAt(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN)
+                .format(LocalDateTime.ofInstant(hold.getExpiresAt(), ZoneId.systemDefault())));
+        return bookingHoldDto;
+    }
+
+    public static FreeIntervalDto mapToFreeIntervalDto(FreeInterval interval) {
+        return new FreeIntervalDto(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(interval.getStart()),
+                DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(interval.getEnd()));
+    }
+
+    public static BookingDto mapToBookingDto(BookingView view) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(view.getId());
+        bookingDto.setBooker(UserDto.builder()
+            .id(view.getBookerId())
+            .name(view.getBookerName())
+            .email(view.getBookerEmail())
+            .build());
+        bookingDto.setItemId(view.getItemId());
+        bookingDto.setItem(new ItemDto(view.getItemId(), view.getItemOwnerId(), view.getItemName(),
+                view.getItemDescription(), view.getItemAvailable(), null, null, view.getItemRequestId(),
+                new HashSet<>()));
+        bookingDto.setStart(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(view.getStartDate()));
+        bookingDto.setEnd(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN).format(view.getEndDate()));
+        bookingDto.setStatus(view.getStatus().toString());
+        return bookingDto;
+    }
+
     public static BookingShotDto mapToBookingShotDto(Booking booking) {
         BookingShotDto bookingShotDto = new BookingShotDto();
         bookingShotDto.setId(booking.getId());
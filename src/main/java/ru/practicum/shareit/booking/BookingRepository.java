@@ -1,75 +1,194 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query(value = "select bo from Booking as bo where bo.booker = ?1 order by startDate desc")
-    Page<Booking> getBookingByBooker(User booker, Pageable pageable);
+    String BOOKING_VIEW = "select new ru.practicum.shareit.booking.BookingView(bo.id, bo.startDate, bo.endDate, " +
+            "bo.status, it.id, it.name, it.description, it.available, it.owner.id, it.request.id, bk.id, bk.name, " +
+            "bk.email) from Booking as bo join bo.item as it join bo.booker as bk ";
+
+    Optional<Booking> findFirstByItemAndStartDateAfterOrderByStartDateAsc(Item item, LocalDateTime now);
+
+    Optional<Booking> findFirstByItemAndStatusAndStartDateAfterOrderByStartDateAsc(Item item, BookingStatus status,
+                                                                                   LocalDateTime now);
+
+    default Optional<Booking> getBookingOneFutureAllStatuses(Item item) {
+        return findFirstByItemAndStartDateAfterOrderByStartDateAsc(item, LocalDateTime.now());
+    }
+
+    default Optional<Booking> getBookingOneFutureApproved(Item item) {
+        return findFirstByItemAndStatusAndStartDateAfterOrderByStartDateAsc(item, BookingStatus.APPROVED,
+                LocalDateTime.now());
+    }
+
+    Optional<Booking> findFirstByItemAndStatusAndStartDateLessThanEqualOrderByEndDateDesc(Item item,
+                                                                                          BookingStatus status,
+                                                                                          LocalDateTime now);
+
+    default Optional<Booking> getBookingOnePast(Item item) {
+        return findFirstByItemAndStatusAndStartDateLessThanEqualOrderByEndDateDesc(item, BookingStatus.APPROVED,
+                LocalDateTime.now());
+    }
+
+    @Query(value = "select bo from Booking as bo where bo.item.id in ?1 and bo.startDate <= CURRENT_TIMESTAMP() and " +
+            "bo.status = 'APPROVED' and bo.endDate = (select max(b.endDate) from Booking as b where " +
+            "b.item = bo.item and b.startDate <= CURRENT_TIMESTAMP() and b.status = 'APPROVED')")
+    List<Booking> getBookingLastByItems(Collection<Long> itemIds);
+
+    @Query(value = "select bo from Booking as bo where bo.item.id in ?1 and bo.startDate > CURRENT_TIMESTAMP() and " +
+            "bo.startDate = (select min(b.startDate) from Booking as b where b.item = bo.item and " +
+            "b.startDate > CURRENT_TIMESTAMP())")
+    List<Booking> getBookingNextAllStatusesByItems(Collection<Long> itemIds);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingInterval(bo.id, bo.startDate, bo.endDate) " +
+            "from Booking as bo where bo.item.id = ?1 and bo.status = 'APPROVED' and bo.endDate > ?2")
+    List<BookingInterval> getApprovedIntervals(long itemId, LocalDateTime after);
+
+    @Query(value = "select new ru.practicum.shareit.booking.ItemBookingInterval(bo.item.id, bo.id, bo.startDate, " +
+            "bo.endDate) from Booking as bo where bo.item.id in ?1 and bo.status = 'APPROVED' and bo.endDate > ?2")
+    List<ItemBookingInterval> getApprovedIntervalsByItems(Collection<Long> itemIds, LocalDateTime after);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingInterval(bo.id, bo.startDate, bo.endDate) " +
+            "from Booking as bo where bo.item.id = ?1 and bo.status = ?2 and bo.endDate > ?3")
+    List<BookingInterval> getIntervalsByStatus(long itemId, BookingStatus status, LocalDateTime after);
+
+    @Query(value = "select bo.id from Booking as bo where bo.status = ?1 and (bo.startDate < ?2 or bo.created < ?3) " +
+            "order by bo.id")
+    List<Long> getBookingIdsByStatusStartedOrCreatedBefore(BookingStatus status, LocalDateTime startedBefore,
+                                                           LocalDateTime createdBefore, Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Booking as bo set bo.status = ?3, bo.version = bo.version + 1 " +
+            "where bo.id in ?1 and bo.status = ?2")
+    int updateStatus(Collection<Long> ids, BookingStatus from, BookingStatus to);
+
+    /**
+     * Approves and rejects waiting bookings, skipping an empty side, as an empty IN list is not valid SQL.
+     */
+    default int approveAndReject(Collection<Long> approvedIds, Collection<Long> rejectedIds) {
+        int updated = 0;
+        if (!approvedIds.isEmpty()) {
+            updated += updateStatus(approvedIds, BookingStatus.WAITING, BookingStatus.APPROVED);
+        }
+        if (!rejectedIds.isEmpty()) {
+            updated += updateStatus(rejectedIds, BookingStatus.WAITING, BookingStatus.REJECTED);
+        }
+        return updated;
+    }
+
+    @Query(value = "select distinct bo.item.id from Booking as bo where bo.id in ?1")
+    List<Long> getItemIdsByIds(Collection<Long> bookingIds);
+
+    @Query(value = BOOKING_VIEW + "where bo.id in ?1 order by bo.id")
+    List<BookingView> getBookingViewsByIds(Collection<Long> bookingIds);
 
-    @Query(value = "select bo from Booking as bo join bo.item as it where it.owner = ?1 " +
-            "order by bo.startDate desc")
-    Page<Booking> getBookingByOwner(User owner, Pageable pageable);
-
-    @Query(value = "select bo from Booking as bo where startDate <= CURRENT_TIMESTAMP() and " +
-            "endDate >= CURRENT_TIMESTAMP() and bo.booker = ?1 " +
-            "order by bo.startDate desc")
-    Page<Booking> getBookingCurrentByBooker(User booker, Pageable pageable);
+    @Query(value = "select bo from Booking as bo where bo.item = ?1 and bo.booker = ?2 and " +
+            "bo.status = 'APPROVED' and bo.endDate < CURRENT_TIMESTAMP() order by bo.startDate desc")
+    List<Booking> getBookingByItemAndBooker(Item item, User booker);
 
-    @Query(value = "select bo from Booking as bo join bo.item as it where it.owner = ?1 and " +
+    @Query(value = BOOKING_VIEW + "where bo.booker = ?1 and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingByBookerAfter(User booker, LocalDateTime startDate, long id, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingByOwnerAfter(User owner, LocalDateTime startDate, long id, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.startDate <= CURRENT_TIMESTAMP() and " +
+            "bo.endDate >= CURRENT_TIMESTAMP() and bo.booker = ?1 and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingCurrentByBookerAfter(User booker, LocalDateTime startDate, long id,
+                                                     Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
+            "bo.startDate <= CURRENT_TIMESTAMP() and bo.endDate >= CURRENT_TIMESTAMP() and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingCurrentByOwnerAfter(User owner, LocalDateTime startDate, long id,
+                                                    Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.startDate > CURRENT_TIMESTAMP() and bo.booker = ?1 and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingFutureByBookerAfter(User booker, LocalDateTime startDate, long id,
+                                                    Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
+            "bo.startDate > CURRENT_TIMESTAMP() and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingFutureByOwnerAfter(User owner, LocalDateTime startDate, long id,
+                                                   Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.endDate < CURRENT_TIMESTAMP() and " +
+            "bo.status = 'APPROVED' and bo.booker = ?1 and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingPastByBookerAfter(User booker, LocalDateTime startDate, long id,
+                                                  Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
+            "bo.endDate < CURRENT_TIMESTAMP() and bo.status = 'APPROVED' and " +
+            "(bo.startDate < ?2 or (bo.startDate = ?2 and bo.id < ?3)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingPastByOwnerAfter(User owner, LocalDateTime startDate, long id,
+                                                 Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.booker = ?1 and bo.status = ?2 and " +
+            "(bo.startDate < ?3 or (bo.startDate = ?3 and bo.id < ?4)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingByStatusAndBookerAfter(User booker, BookingStatus status, LocalDateTime startDate,
+                                                       long id, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and bo.status = ?2 and " +
+            "(bo.startDate < ?3 or (bo.startDate = ?3 and bo.id < ?4)) order by bo.startDate desc, bo.id desc")
+    List<BookingView> getBookingByStatusAndOwnerAfter(User owner, BookingStatus status, LocalDateTime startDate,
+                                                      long id, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.booker = ?1 order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewByBooker(User booker, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 " +
+            "order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewByOwner(User owner, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.startDate <= CURRENT_TIMESTAMP() and " +
+            "bo.endDate >= CURRENT_TIMESTAMP() and bo.booker = ?1 " +
+            "order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewCurrentByBooker(User booker, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
             "bo.startDate <= CURRENT_TIMESTAMP() and bo.endDate >= CURRENT_TIMESTAMP() " +
-            "order by bo.startDate desc")
-    Page<Booking> getBookingCurrentByOwner(User owner, Pageable pageable);
+            "order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewCurrentByOwner(User owner, Pageable pageable);
 
-    @Query(value = "select bo from Booking as bo where startDate > CURRENT_TIMESTAMP() and bo.booker = ?1 " +
-            "order by bo.startDate desc")
-    Page<Booking> getBookingFutureByBooker(User booker, Pageable pageable);
+    @Query(value = BOOKING_VIEW + "where bo.startDate > CURRENT_TIMESTAMP() and bo.booker = ?1 " +
+            "order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewFutureByBooker(User booker, Pageable pageable);
 
-    @Query(value = "select bo from Booking as bo join bo.item as it where it.owner = ?1 and " +
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
             "bo.startDate > CURRENT_TIMESTAMP() " +
-            "order by bo.startDate desc")
-    Page<Booking> getBookingFutureByOwner(User owner, Pageable pageable);
-
-    @Query(value = "select bo from Booking as bo where startDate > CURRENT_TIMESTAMP() and " +
-            "bo.item = ?1 order by bo.startDate")
-    List<Booking> getBookingOneFutureAllStatuses(Item item);
-
-    @Query(value = "select bo from Booking as bo where startDate > CURRENT_TIMESTAMP() and " +
-            "bo.item = ?1 and status='APPROVED' order by bo.startDate")
-    List<Booking> getBookingOneFutureApproved(Item item);
+            "order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewFutureByOwner(User owner, Pageable pageable);
 
-    @Query(value = "select bo from Booking as bo where endDate < CURRENT_TIMESTAMP() and " +
-            "status='APPROVED' and bo.booker = ?1 order by bo.startDate desc")
-    Page<Booking> getBookingPastByBooker(User booker, Pageable pageable);
+    @Query(value = BOOKING_VIEW + "where bo.endDate < CURRENT_TIMESTAMP() and " +
+            "bo.status = 'APPROVED' and bo.booker = ?1 order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewPastByBooker(User booker, Pageable pageable);
 
-    @Query(value = "select bo from Booking as bo join bo.item as it where it.owner = ?1 and " +
-            "bo.endDate < CURRENT_TIMESTAMP() and bo.status='APPROVED' order by bo.startDate desc")
-    Page<Booking> getBookingPastByOwner(User owner, Pageable pageable);
-
-    @Query(value = "select bo from Booking as bo where startDate <= CURRENT_TIMESTAMP() and " +
-            "status='APPROVED' and bo.item = ?1 order by bo.endDate desc")
-    List<Booking> getBookingOnePast(Item item);
-
-    @Query(value = "select count(*) from Booking as bo where item = ?1 and " +
-            "((?2 between startDate and endDate) or (?1 between startDate and endDate)) and status='APPROVED'")
-    int getCount(long itemId, LocalDateTime start, LocalDateTime end);
-
-    @Query(value = "select bo from Booking as bo where bo.item = ?1 and bo.booker = ?2 and " +
-            "bo.status = 'APPROVED' and bo.endDate < CURRENT_TIMESTAMP() order by bo.startDate desc")
-    List<Booking> getBookingByItemAndBooker(Item item, User booker);
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 and " +
+            "bo.endDate < CURRENT_TIMESTAMP() and bo.status = 'APPROVED' order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewPastByOwner(User owner, Pageable pageable);
 
-    @Query(value = "select bo from Booking as bo where bo.booker = ?1 and bo.status = ?2 " +
-            "order by bo.startDate desc")
-    Page<Booking> getBookingByStatusAndBooker(User booker, BookingStatus status, Pageable pageable);
+    @Query(value = BOOKING_VIEW + "where bo.booker = ?1 and bo.status = ?2 " +
+            "order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewByStatusAndBooker(User booker, BookingStatus status, Pageable pageable);
 
-    @Query(value = "select bo from Booking as bo join bo.item as it where it.owner = ?1 " +
-            "and bo.status = ?2 order by bo.startDate desc")
-    Page<Booking> getBookingByStatusAndOwner(User owner, BookingStatus status, Pageable pageable);
-}
+    @Query(value = BOOKING_VIEW + "where bo.owner = ?1 " +
+            "and bo.status = ?2 order by bo.startDate desc, bo.id desc")
+    Slice<BookingView> getBookingViewByStatusAndOwner(User owner, BookingStatus status, Pageable pageable);
+}
\ No newline at end of file
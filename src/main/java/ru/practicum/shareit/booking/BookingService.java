@@ -6,11 +6,25 @@ public interface BookingService {
 
     BookingDto addBooking(long userId, BookingDto bookingDto);
 
+    List<BookingBatchResult> addBookings(long userId, List<BookingDto> bookingDtos);
+
+    void addItemBookings(long itemId, List<BookingCommand> commands);
+
+    BookingHoldDto holdBooking(long userId, BookingDto bookingDto, int minutes);
+
+    BookingDto confirmHold(long userId, long holdId);
+
     BookingDto approveBooking(long userId, long bookingId, boolean approved);
 
+    List<BookingDto> approveBookings(long userId, List<BookingDecision> decisions);
+
     BookingDto getBooking(long userId, long bookingId);
 
     List<BookingDto> getBookingByOwner(long userId, String state, int from, int size);
 
     List<BookingDto> getBookingByBooker(long userId, String state, int from, int size);
+
+    BookingPage getBookingByOwnerAfter(long userId, String state, String cursor, int size);
+
+    BookingPage getBookingByBookerAfter(long userId, String state, String cursor, int size);
 }
\ No newline at end of file
@@ -1,8 +1,9 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.BadRequestException;
@@ -10,58 +11,176 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.*;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.util.StripedLocks;
+import ru.practicum.shareit.util.Transactions;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.chrono.ChronoLocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    static final int MAX_BATCH_SIZE = 500;
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingHolds bookingHolds;
+    private final ItemViewCache itemViewCache;
+    private final StripedLocks itemLocks = new StripedLocks(64);
 
     @Transactional
     @Override
     public BookingDto addBooking(long userId, BookingDto bookingDto) {
-        if ((bookingDto.getStart() == null || bookingDto.getEnd() == null) ||
-                !LocalDateTime.parse(bookingDto.getStart()).isBefore(LocalDateTime.parse(bookingDto.getEnd())) ||
-                LocalDate.now().isAfter(ChronoLocalDate.from(LocalDateTime.parse(bookingDto.getStart())))) {
-            throw new BadRequestException("Wrong dates.");
-        }
+        checkDates(bookingDto);
         Item item = itemRepository.findById(bookingDto.getItemId()).orElseThrow(() ->
                 new NotFoundException("Item not found."));
-        if (!item.getAvailable()) {
-            throw new BadRequestException("Item is unavailable.");
+        itemLocks.lockUntilCompletion(List.of(item.getId()));
+        checkAvailable(item);
+        User booker = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
+        Booking booking = bookingRepository.saveAndFlush(makeBooking(bookingDto, booker, item));
+        track(booking);
+        return BookingMapper.mapToBookingDto(booking);
+    }
+
+    @Transactional
+    @Override
+    public List<BookingBatchResult> addBookings(long userId, List<BookingDto> bookingDtos) {
+        if (bookingDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(String.format("Too many bookings in a batch: %d, at most %d allowed.",
+                    bookingDtos.size(), MAX_BATCH_SIZE));
         }
         User booker = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
-        Booking booking = BookingMapper.mapToBooking(bookingDto, booker, item);
-        if (Objects.equals(booker.getId(), item.getOwner().getId())) {
-            throw new NotFoundException("Item owner and booker are equal.");
+        Set<Long> itemIds = bookingDtos.stream()
+            .filter(Objects::nonNull)
+            .map(BookingDto::getItemId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+            .collect(Collectors.toMap(Item::getId, Function.identity()));
+        itemLocks.lockUntilCompletion(items.keySet());
+        bookingIntervalIndex.load(items.keySet());
+        List<BookingBatchResult> results = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            Booking booking;
+            try {
+                checkBooking(bookingDto);
+                Item item = items.get(bookingDto.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Item not found.");
+                }
+                checkAvailable(item);
+                booking = makeBooking(bookingDto, booker, item);
+            } catch (BadRequestException | NotFoundException | DateTimeParseException e) {
+                results.add(new BookingBatchResult(i, null, e.getMessage()));
+                continue;
+            }
+            booking = bookingRepository.save(booking);
+            track(booking);
+            results.add(new BookingBatchResult(i, BookingMapper.mapToBookingDto(booking), null));
         }
-        return BookingMapper.mapToBookingDto(bookingRepository.saveAndFlush(booking));
+        bookingRepository.flush();
+        return results;
+    }
+
+    @Transactional
+    @Override
+    public void addItemBookings(long itemId, List<BookingCommand> commands) {
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Item not found."));
+        itemLocks.lockUntilCompletion(List.of(itemId));
+        bookingIntervalIndex.load(List.of(itemId));
+        Set<Long> userIds = commands.stream()
+            .map(BookingCommand::getUserId)
+            .collect(Collectors.toSet());
+        Map<Long, User> bookers = userRepository.findAllById(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (BookingCommand command : commands) {
+            Booking booking;
+            try {
+                checkBooking(command.getBooking());
+                checkAvailable(item);
+                User booker = bookers.get(command.getUserId());
+                if (booker == null) {
+                    throw new NotFoundException("User not found.");
+                }
+                booking = makeBooking(command.getBooking(), booker, item);
+            } catch (BadRequestException | NotFoundException | DateTimeParseException e) {
+                command.setError(e);
+                continue;
+            }
+            booking = bookingRepository.save(booking);
+            track(booking);
+            command.setResult(BookingMapper.mapToBookingDto(booking));
+        }
+        bookingRepository.flush();
+    }
+
+    @Override
+    public BookingHoldDto holdBooking(long userId, BookingDto bookingDto, int minutes) {
+        if (minutes <= 0) {
+            throw new BadRequestException(String.format("Non-positive hold minutes: %d", minutes));
+        }
+        checkDates(bookingDto);
+        Item item = itemRepository.findById(bookingDto.getItemId()).orElseThrow(() ->
+                new NotFoundException("Item not found."));
+        itemLocks.lockUntilCompletion(List.of(item.getId()));
+        checkAvailable(item);
+        User booker = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
+        Booking booking = makeBooking(bookingDto, booker, item);
+        BookingHold hold = bookingHolds.tryHold(item.getId(), userId, booking.getStartDate(), booking.getEndDate(),
+                Duration.ofMinutes(minutes)).orElseThrow(() ->
+                new BadRequestException("Item is on hold for these dates."));
+        return BookingMapper.mapToBookingHoldDto(hold);
+    }
+
+    @Transactional
+    @Override
+    public BookingDto confirmHold(long userId, long holdId) {
+        long itemId = bookingHolds.get(holdId)
+            .filter(found -> found.getUserId() == userId)
+            .orElseThrow(() -> new NotFoundException("Hold not found."))
+            .getItemId();
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Item not found."));
+        itemLocks.lockUntilCompletion(List.of(item.getId()));
+        BookingHold hold = bookingHolds.claim(holdId, userId).orElseThrow(() ->
+                new NotFoundException("Hold not found."));
+        Transactions.onRollback(() -> bookingHolds.unclaim(hold));
+        checkAvailable(item);
+        User booker = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
+        Booking booking = bookingRepository.saveAndFlush(makeBooking(BookingMapper.mapToBookingDto(hold), booker,
+                item, holdId));
+        track(booking);
+        Transactions.afterCommit(() -> bookingHolds.release(hold));
+        return BookingMapper.mapToBookingDto(booking);
     }
 
     @Transactional
     @Override
     public BookingDto approveBooking(long userId, long bookingId, boolean approved) {
-        if (!userRepository.existsById(userId)) {
+        if (userRepository.findById(userId).isEmpty()) {
             throw new NotFoundException("User not found.");
         }
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
                 new NotFoundException("Booking not found."));
         Item item = booking.getItem();
+        itemLocks.lockUntilCompletion(List.of(item.getId()));
         if (userId != item.getOwner().getId()) {
             throw new NotFoundException("This item has another owner.");
         }
-        if (booking.getStatus() == BookingStatus.APPROVED) {
-            throw new BadRequestException("Booking is already approved.");
-        }
+        checkWaiting(booking);
+        bookingIntervalIndex.removeWaiting(booking);
         if (approved) {
+            // reserve first: loading a cold index flushes, and must not see this booking as approved yet
+            reserve(booking);
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
@@ -69,9 +188,56 @@ public class BookingServiceImpl implements BookingService {
         return BookingMapper.mapToBookingDto(bookingRepository.saveAndFlush(booking));
     }
 
+    @Transactional
+    @Override
+    public List<BookingDto> approveBookings(long userId, List<BookingDecision> decisions) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new NotFoundException("User not found.");
+        }
+        Map<Long, Boolean> approvals = new LinkedHashMap<>();
+        for (BookingDecision decision : decisions) {
+            if (decision.getBookingId() == null || decision.getApproved() == null) {
+                throw new BadRequestException("Booking id and decision are required.");
+            }
+            approvals.put(decision.getBookingId(), decision.getApproved());
+        }
+        if (approvals.isEmpty()) {
+            return new ArrayList<>();
+        }
+        itemLocks.lockUntilCompletion(bookingRepository.getItemIdsByIds(approvals.keySet()));
+        List<Booking> bookings = bookingRepository.findAllById(approvals.keySet());
+        if (bookings.size() != approvals.size()) {
+            throw new NotFoundException("Booking not found.");
+        }
+        List<Long> approvedIds = new ArrayList<>();
+        List<Long> rejectedIds = new ArrayList<>();
+        for (Booking booking : bookings) {
+            if (userId != booking.getOwner().getId()) {
+                throw new NotFoundException("This item has another owner.");
+            }
+            checkWaiting(booking);
+            bookingIntervalIndex.removeWaiting(booking);
+            if (approvals.get(booking.getId())) {
+                reserve(booking);
+                approvedIds.add(booking.getId());
+            } else {
+                rejectedIds.add(booking.getId());
+            }
+        }
+        if (bookingRepository.approveAndReject(approvedIds, rejectedIds) != bookings.size()) {
+            throw new OptimisticLockingFailureException("A booking was decided by another request.");
+        }
+        Map<Long, BookingView> views = bookingRepository.getBookingViewsByIds(approvals.keySet()).stream()
+            .collect(Collectors.toMap(BookingView::getId, Function.identity()));
+        return approvals.keySet().stream()
+            .map(views::get)
+            .map(BookingMapper::mapToBookingDto)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public BookingDto getBooking(long userId, long bookingId) {
-        if (!userRepository.existsById(userId)) {
+        if (userRepository.findById(userId).isEmpty()) {
             throw new NotFoundException("User not found.");
         }
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
@@ -85,80 +251,240 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<BookingDto> getBookingByOwner(long userId, String stringState, int from, int size) {
         User owner = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
-        boolean isState = Arrays.stream(BookingStates.values()).anyMatch(element ->
-                element.toString().equals(stringState));
-        if (!isState) {
-            throw new BadRequestException(String.format("Unknown state: %s", stringState));
-        }
-        BookingStates state = BookingStates.valueOf(stringState);
-        Page<Booking> bookings = null;
+        BookingStates state = parseState(stringState);
+        checkFromSize(from, size);
+        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size);
+        return getBookingByOwner(owner, state, pageable).getContent().stream()
+            .map(BookingMapper::mapToBookingDto)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<BookingDto> getBookingByBooker(long userId, String stringState, int from, int size) {
+        User booker = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
+        BookingStates state = parseState(stringState);
         checkFromSize(from, size);
         PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size);
+        return getBookingByBooker(booker, state, pageable).getContent().stream()
+            .map(BookingMapper::mapToBookingDto)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public BookingPage getBookingByOwnerAfter(long userId, String stringState, String cursor, int size) {
+        User owner = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
+        BookingStates state = parseState(stringState);
+        checkSize(size);
+        if (cursor == null || cursor.isEmpty()) {
+            return toBookingPage(getBookingByOwner(owner, state, PageRequest.of(0, size)).getContent(), size);
+        }
+        BookingCursor after = BookingCursor.decode(cursor);
+        PageRequest limit = PageRequest.of(0, size);
+        List<BookingView> bookings;
         switch (state) {
-            case ALL:
-                bookings =  bookingRepository.getBookingByOwner(owner, pageable);
-                break;
             case CURRENT:
-                bookings =  bookingRepository.getBookingCurrentByOwner(owner, pageable);
+                bookings = bookingRepository.getBookingCurrentByOwnerAfter(owner, after.getStartDate(),
+                        after.getId(), limit);
                 break;
             case FUTURE:
-                bookings =  bookingRepository.getBookingFutureByOwner(owner, pageable);
+                bookings = bookingRepository.getBookingFutureByOwnerAfter(owner, after.getStartDate(),
+                        after.getId(), limit);
                 break;
             case PAST:
-                bookings =  bookingRepository.getBookingPastByOwner(owner, pageable);
+                bookings = bookingRepository.getBookingPastByOwnerAfter(owner, after.getStartDate(),
+                        after.getId(), limit);
                 break;
             case WAITING:
-                bookings =  bookingRepository.getBookingByStatusAndOwner(owner, BookingStatus.WAITING, pageable);
+                bookings = bookingRepository.getBookingByStatusAndOwnerAfter(owner, BookingStatus.WAITING,
+                        after.getStartDate(), after.getId(), limit);
                 break;
             case REJECTED:
-                bookings =  bookingRepository.getBookingByStatusAndOwner(owner, BookingStatus.REJECTED, pageable);
+                bookings = bookingRepository.getBookingByStatusAndOwnerAfter(owner, BookingStatus.REJECTED,
+                        after.getStartDate(), after.getId(), limit);
+                break;
+            case EXPIRED:
+                bookings = bookingRepository.getBookingByStatusAndOwnerAfter(owner, BookingStatus.EXPIRED,
+                        after.getStartDate(), after.getId(), limit);
                 break;
             default:
+                bookings = bookingRepository.getBookingByOwnerAfter(owner, after.getStartDate(), after.getId(),
+                        limit);
                 break;
         }
-        return bookings.getContent().stream()
-            .map(BookingMapper::mapToBookingDto)
-            .collect(Collectors.toList());
+        return toBookingPage(bookings, size);
     }
 
     @Override
-    public List<BookingDto> getBookingByBooker(long userId, String stringState, int from, int size) {
+    public BookingPage getBookingByBookerAfter(long userId, String stringState, String cursor, int size) {
         User booker = userRepository.findById(userId).orElseThrow(() -> new NotFoundException("User not found."));
-        boolean isState = Arrays.stream(BookingStates.values()).anyMatch(element ->
-                element.toString().equals(stringState));
-        if (!isState) {
-            throw new BadRequestException(String.format("Unknown state: %s", stringState));
+        BookingStates state = parseState(stringState);
+        checkSize(size);
+        if (cursor == null || cursor.isEmpty()) {
+            return toBookingPage(getBookingByBooker(booker, state, PageRequest.of(0, size)).getContent(), size);
         }
-        BookingStates state = BookingStates.valueOf(stringState);
-        Page<Booking> bookings = null;
-        checkFromSize(from, size);
-        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size);
+        BookingCursor after = BookingCursor.decode(cursor);
+        PageRequest limit = PageRequest.of(0, size);
+        List<BookingView> bookings;
         switch (state) {
-            case ALL:
-                bookings =  bookingRepository.getBookingByBooker(booker, pageable);
-                break;
             case CURRENT:
-                bookings =  bookingRepository.getBookingCurrentByBooker(booker, pageable);
+                bookings = bookingRepository.getBookingCurrentByBookerAfter(booker, after.getStartDate(),
+                        after.getId(), limit);
                 break;
             case FUTURE:
-                bookings =  bookingRepository.getBookingFutureByBooker(booker, pageable);
+                bookings = bookingRepository.getBookingFutureByBookerAfter(booker, after.getStartDate(),
+                        after.getId(), limit);
                 break;
             case PAST:
-                bookings =  bookingRepository.getBookingPastByBooker(booker, pageable);
+                bookings = bookingRepository.getBookingPastByBookerAfter(booker, after.getStartDate(),
+                        after.getId(), limit);
                 break;
             case WAITING:
-                bookings =  bookingRepository.getBookingByStatusAndBooker(booker, BookingStatus.WAITING, pageable);
+                bookings = bookingRepository.getBookingByStatusAndBookerAfter(booker, BookingStatus.WAITING,
+                        after.getStartDate(), after.getId(), limit);
                 break;
             case REJECTED:
-                bookings =  bookingRepository.getBookingByStatusAndBooker(booker, BookingStatus.REJECTED, pageable);
+                bookings = bookingRepository.getBookingByStatusAndBookerAfter(booker, BookingStatus.REJECTED,
+                        after.getStartDate(), after.getId(), limit);
+                break;
+            case EXPIRED:
+                bookings = bookingRepository.getBookingByStatusAndBookerAfter(booker, BookingStatus.EXPIRED,
+                        after.getStartDate(), after.getId(), limit);
                 break;
             default:
+                bookings = bookingRepository.getBookingByBookerAfter(booker, after.getStartDate(), after.getId(),
+                        limit);
                 break;
         }
+        return toBookingPage(bookings, size);
+    }
+
+    private Slice<BookingView> getBookingByOwner(User owner, BookingStates state, PageRequest pageable) {
+        switch (state) {
+            case CURRENT:
+                return bookingRepository.getBookingViewCurrentByOwner(owner, pageable);
+            case FUTURE:
+                return bookingRepository.getBookingViewFutureByOwner(owner, pageable);
+            case PAST:
+                return bookingRepository.getBookingViewPastByOwner(owner, pageable);
+            case WAITING:
+                return bookingRepository.getBookingViewByStatusAndOwner(owner, BookingStatus.WAITING, pageable);
+            case REJECTED:
+                return bookingRepository.getBookingViewByStatusAndOwner(owner, BookingStatus.REJECTED, pageable);
+            case EXPIRED:
+                return bookingRepository.getBookingViewByStatusAndOwner(owner, BookingStatus.EXPIRED, pageable);
+            default:
+                return bookingRepository.getBookingViewByOwner(owner, pageable);
+        }
+    }
+
+    private Slice<BookingView> getBookingByBooker(User booker, BookingStates state, PageRequest pageable) {
+        switch (state) {
+            case CURRENT:
+                return bookingRepository.getBookingViewCurrentByBooker(booker, pageable);
+            case FUTURE:
+                return bookingRepository.getBookingViewFutureByBooker(booker, pageable);
+            case PAST:
+                return bookingRepository.getBookingViewPastByBooker(booker, pageable);
+            case WAITING:
+                return bookingRepository.getBookingViewByStatusAndBooker(booker, BookingStatus.WAITING, pageable);
+            case REJECTED:
+                return bookingRepository.getBookingViewByStatusAndBooker(booker, BookingStatus.REJECTED, pageable);
+            case EXPIRED:
+                return bookingRepository.getBookingViewByStatusAndBooker(booker, BookingStatus.EXPIRED, pageable);
+            default:
+                return bookingRepository.getBookingViewByBooker(booker, pageable);
+        }
+    }
 
-        return bookings.getContent().stream()
+    private BookingPage toBookingPage(List<BookingView> bookings, int size) {
+        String nextCursor = bookings.size() < size ? null :
+                BookingCursor.of(bookings.get(bookings.size() - 1)).encode();
+        return new BookingPage(bookings.stream()
             .map(BookingMapper::mapToBookingDto)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()), nextCursor);
+    }
+
+    private BookingStates parseState(String stringState) {
+        boolean isState = Arrays.stream(BookingStates.values()).anyMatch(element ->
+                element.toString().equals(stringState));
+        if (!isState) {
+            throw new BadRequestException(String.format("Unknown state: %s", stringState));
+        }
+        return BookingStates.valueOf(stringState);
+    }
+
+    private void checkSize(int size) {
+        if (size < 1) {
+            throw new BadRequestException(String.format("Non-positive size: %d", size));
+        }
+    }
+
+    private Booking makeBooking(BookingDto bookingDto, User booker, Item item) {
+        return makeBooking(bookingDto, booker, item, null);
+    }
+
+    private Booking makeBooking(BookingDto bookingDto, User booker, Item item, Long confirmedHoldId) {
+        if (Objects.equals(booker.getId(), item.getOwner().getId())) {
+            throw new NotFoundException("Item owner and booker are equal.");
+        }
+        Booking booking = BookingMapper.mapToBooking(bookingDto, booker, item);
+        if (!bookingIntervalIndex.isFree(item.getId(), booking.getStartDate(), booking.getEndDate())) {
+            throw new BadRequestException("Item is already booked for these dates.");
+        }
+        if (!bookingHolds.isFree(item.getId(), booking.getStartDate(), booking.getEndDate(), confirmedHoldId)) {
+            throw new BadRequestException("Item is on hold for these dates.");
+        }
+        return booking;
+    }
+
+    private void checkAvailable(Item item) {
+        if (!item.getAvailable()) {
+            throw new BadRequestException("Item is unavailable.");
+        }
+    }
+
+    private void checkWaiting(Booking booking) {
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            throw new BadRequestException(String.format("Booking is already %s.",
+                    booking.getStatus().toString().toLowerCase()));
+        }
+    }
+
+    private void checkBooking(BookingDto bookingDto) {
+        if (bookingDto == null) {
+            throw new BadRequestException("Booking is missing.");
+        }
+        checkDates(bookingDto);
+        if (bookingDto.getStatus() != null) {
+            try {
+                BookingStatus.valueOf(bookingDto.getStatus());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(String.format("Unknown status: %s", bookingDto.getStatus()));
+            }
+        }
+    }
+
+    private void checkDates(BookingDto bookingDto) {
+        if ((bookingDto.getStart() == null || bookingDto.getEnd() == null) ||
+                !LocalDateTime.parse(bookingDto.getStart()).isBefore(LocalDateTime.parse(bookingDto.getEnd())) ||
+                LocalDate.now().isAfter(ChronoLocalDate.from(LocalDateTime.parse(bookingDto.getStart())))) {
+            throw new BadRequestException("Wrong dates.");
+        }
+    }
+
+    private void track(Booking booking) {
+        if (booking.getStatus() == BookingStatus.APPROVED) {
+            reserve(booking);
+        } else if (booking.getStatus() == BookingStatus.WAITING) {
+            bookingIntervalIndex.addWaiting(booking);
+        }
+    }
+
+    private void reserve(Booking booking) {
+        if (!bookingIntervalIndex.reserve(booking)) {
+            throw new BadRequestException("Item is already booked for these dates.");
+        }
+        itemViewCache.invalidate(booking.getItem().getId());
     }
 
     private void checkFromSize(int from, int size) {
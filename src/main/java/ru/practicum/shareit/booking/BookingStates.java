@@ -11,5 +11,6 @@ public enum BookingStates {
     PAST,
     FUTURE,
     WAITING,
-    REJECTED
+    REJECTED,
+    EXPIRED
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional write path for hot items: booking requests for one item are queued and a single worker commits
+ * whatever has piled up in one transaction, so a burst costs a few flushes instead of one per request.
+ * Disabled unless {@code booking.write-queue.enabled} is set.
+ */
+@Component
+public class BookingWriteQueue {
+    private final BookingService bookingService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+    private final ExecutorService workers;
+    private final ConcurrentMap<Long, ItemQueue> queues = new ConcurrentHashMap<>();
+
+    public BookingWriteQueue(BookingService bookingService,
+                             @Value("${booking.write-queue.enabled:false}") boolean enabled,
+                             @Value("${booking.write-queue.max-batch-size:200}") int maxBatchSize,
+                             @Value("${booking.write-queue.workers:4}") int workers,
+                             @Value("${booking.write-queue.timeout-millis:30000}") long timeoutMillis) {
+        this.bookingService = bookingService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.workers = enabled ? Executors.newFixedThreadPool(workers) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the booking behind the other pending bookings of its item and waits until the batch holding it
+     * is committed. Errors are rethrown to the caller as if the booking had been added directly. A booking
+     * that no worker has taken within {@code booking.write-queue.timeout-millis} is dropped from the queue;
+     * one that a worker has already taken is waited for, so the caller always learns whether it was added.
+     */
+    public BookingDto addBooking(long userId, BookingDto bookingDto) {
+        if (!enabled || bookingDto.getItemId() == null) {
+            return bookingService.addBooking(userId, bookingDto);
+        }
+        PendingBooking pending = new PendingBooking(new BookingCommand(userId, bookingDto));
+        queues.computeIfAbsent(bookingDto.getItemId(), ItemQueue::new).offer(pending);
+        try {
+            try {
+                return pending.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.take()) {
+                    throw new IllegalStateException("Booking write queue timed out.", e);
+                }
+                return pending.future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.take();
+            throw new IllegalStateException("Interrupted while waiting for the booking write queue.", e);
+        }
+    }
+
+    int queuedItems() {
+        return queues.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    private static class PendingBooking {
+        private final BookingCommand command;
+        private final CompletableFuture<BookingDto> future = new CompletableFuture<>();
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        PendingBooking(BookingCommand command) {
+            this.command = command;
+        }
+
+        /**
+         * Returns true for whoever takes the booking first: a worker about to commit it, or a caller giving up.
+         */
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+
+        void complete() {
+            if (command.getError() != null) {
+                future.completeExceptionally(command.getError());
+            } else {
+                future.complete(command.getResult());
+            }
+        }
+    }
+
+    private class ItemQueue {
+        private final long itemId;
+        private final Queue<PendingBooking> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        ItemQueue(long itemId) {
+            this.itemId = itemId;
+        }
+
+        void offer(PendingBooking booking) {
+            pending.offer(booking);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    PendingBooking booking;
+                    while ((booking = pending.poll()) != null) {
+                        if (booking.take()) {
+                            booking.future.completeExceptionally(e);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void drain() {
+            List<PendingBooking> batch = new ArrayList<>();
+            PendingBooking booking;
+            while (batch.size() < maxBatchSize && (booking = pending.poll()) != null) {
+                if (booking.take()) {
+                    batch.add(booking);
+                }
+            }
+            try {
+                commit(batch);
+            } finally {
+                scheduled.set(false);
+                // a booking offered after the removal still schedules this queue itself, so nothing is stranded
+                if (pending.isEmpty()) {
+                    queues.remove(itemId, this);
+                }
+                schedule();
+            }
+        }
+
+        private void commit(List<PendingBooking> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<BookingCommand> commands = new ArrayList<>();
+            batch.forEach(pendingBooking -> commands.add(pendingBooking.command));
+            try {
+                bookingService.addItemBookings(itemId, commands);
+            } catch (RuntimeException e) {
+                batch.forEach(pendingBooking -> pendingBooking.future.completeExceptionally(e));
+                return;
+            }
+            batch.forEach(PendingBooking::complete);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class ItemBookingInterval {
+    long itemId;
+    long bookingId;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    public BookingInterval toBookingInterval() {
+        return new BookingInterval(bookingId, start, end);
+    }
+}
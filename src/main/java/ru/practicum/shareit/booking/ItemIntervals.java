@@ -0,0 +1,150 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Booked intervals of one item ordered by start. Lookups only visit intervals starting within the longest
+ * stored duration before the probe, so a conflict check does not scan the whole history. Optionally keeps an
+ * occupancy bitmap that answers most checks for free dates without touching the tree.
+ */
+class ItemIntervals {
+    private static final Comparator<BookingInterval> ORDER = Comparator.comparing(BookingInterval::getStart)
+            .thenComparingLong(BookingInterval::getBookingId);
+    private static final int BITMAP_SLIDE_DAYS = 64;
+
+    private final NavigableSet<BookingInterval> intervals = new TreeSet<>(ORDER);
+    private Duration maxDuration = Duration.ZERO;
+    private OccupancyBitmap occupancy;
+
+    ItemIntervals(Collection<BookingInterval> loaded) {
+        this(loaded, null);
+    }
+
+    ItemIntervals(Collection<BookingInterval> loaded, LocalDate occupancyFrom) {
+        if (occupancyFrom != null) {
+            occupancy = new OccupancyBitmap(occupancyFrom);
+        }
+        loaded.forEach(this::put);
+    }
+
+    synchronized boolean isEmpty() {
+        return intervals.isEmpty();
+    }
+
+    synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return hasOverlap(start, end);
+    }
+
+    synchronized boolean tryAdd(BookingInterval interval, LocalDateTime expiredBefore) {
+        if (hasOverlap(interval.getStart(), interval.getEnd())) {
+            return false;
+        }
+        removeExpired(expiredBefore);
+        put(interval);
+        return true;
+    }
+
+    synchronized List<BookingInterval> overlapping(LocalDateTime start, LocalDateTime end) {
+        List<BookingInterval> overlapping = new ArrayList<>();
+        for (BookingInterval interval : candidates(start, end)) {
+            if (interval.overlaps(start, end)) {
+                overlapping.add(interval);
+            }
+        }
+        return overlapping;
+    }
+
+    synchronized void remove(long bookingId) {
+        List<BookingInterval> removed = new ArrayList<>();
+        intervals.removeIf(interval -> interval.getBookingId() == bookingId && removed.add(interval));
+        removed.forEach(this::unmark);
+    }
+
+    synchronized void add(BookingInterval interval) {
+        put(interval);
+    }
+
+    synchronized boolean remove(BookingInterval interval) {
+        if (!intervals.remove(interval)) {
+            return false;
+        }
+        unmark(interval);
+        return true;
+    }
+
+    private boolean hasOverlap(LocalDateTime start, LocalDateTime end) {
+        if (occupancy != null && occupancy.isClear(start, end)) {
+            return false;
+        }
+        for (BookingInterval interval : candidates(start, end)) {
+            if (interval.overlaps(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private NavigableSet<BookingInterval> candidates(LocalDateTime start, LocalDateTime end) {
+        return intervals.subSet(probe(start.minus(maxDuration)), true, probe(end), false);
+    }
+
+    private void put(BookingInterval interval) {
+        intervals.add(interval);
+        if (occupancy != null) {
+            occupancy.set(interval.getStart(), interval.getEnd());
+        }
+        Duration duration = Duration.between(interval.getStart(), interval.getEnd());
+        if (duration.compareTo(maxDuration) > 0) {
+            maxDuration = duration;
+        }
+    }
+
+    /**
+     * Clears the days of a removed interval and marks them again for the intervals still sharing them.
+     */
+    private void unmark(BookingInterval removed) {
+        if (occupancy == null) {
+            return;
+        }
+        LocalDateTime from = removed.getStart().toLocalDate().atStartOfDay();
+        LocalDateTime to = OccupancyBitmap.ceilToDay(removed.getEnd());
+        occupancy.clear(from, to);
+        for (BookingInterval interval : candidates(from, to)) {
+            if (interval.overlaps(from, to)) {
+                occupancy.set(interval.getStart(), interval.getEnd());
+            }
+        }
+    }
+
+    private void removeExpired(LocalDateTime expiredBefore) {
+        Iterator<BookingInterval> iterator = intervals.iterator();
+        while (iterator.hasNext()) {
+            BookingInterval interval = iterator.next();
+            if (!interval.getStart().isBefore(expiredBefore)) {
+                break;
+            }
+            if (!interval.getEnd().isAfter(expiredBefore)) {
+                iterator.remove();
+            }
+        }
+        if (occupancy != null && ChronoUnit.DAYS.between(occupancy.getFirstDay(), expiredBefore.toLocalDate())
+                >= BITMAP_SLIDE_DAYS) {
+            occupancy = new OccupancyBitmap(expiredBefore.toLocalDate());
+            intervals.forEach(interval -> occupancy.set(interval.getStart(), interval.getEnd()));
+        }
+    }
+
+    private static BookingInterval probe(LocalDateTime point) {
+        return new BookingInterval(Long.MIN_VALUE, point, point);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * One bit per day of a fixed window, set when a booking touches that day. A clear range is certainly free and
+ * is checked with a few word-wide ANDs; a set bit may come from a booking covering only part of the day, so
+ * callers confirm it against the exact intervals. Days outside the window are reported as possibly busy.
+ */
+class OccupancyBitmap {
+    static final int DAYS = 1024;
+
+    private static final int WORD_BITS = Long.SIZE;
+
+    private final LocalDate firstDay;
+    private final long[] words = new long[DAYS / WORD_BITS];
+
+    OccupancyBitmap(LocalDate firstDay) {
+        this.firstDay = firstDay;
+    }
+
+    LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    void set(LocalDateTime start, LocalDateTime end) {
+        long from = Math.max(dayOf(start), 0);
+        long to = Math.min(dayAfter(end), DAYS);
+        for (long day = from; day < to; ) {
+            int word = (int) (day / WORD_BITS);
+            int bits = (int) Math.min(WORD_BITS - day % WORD_BITS, to - day);
+            words[word] |= mask(day, bits);
+            day += bits;
+        }
+    }
+
+    void clear(LocalDateTime start, LocalDateTime end) {
+        long from = Math.max(dayOf(start), 0);
+        long to = Math.min(dayAfter(end), DAYS);
+        for (long day = from; day < to; ) {
+            int word = (int) (day / WORD_BITS);
+            int bits = (int) Math.min(WORD_BITS - day % WORD_BITS, to - day);
+            words[word] &= ~mask(day, bits);
+            day += bits;
+        }
+    }
+
+    /**
+     * Returns true only if no day touched by the range is marked, i.e. the range is known to be free.
+     */
+    boolean isClear(LocalDateTime start, LocalDateTime end) {
+        long from = dayOf(start);
+        long to = dayAfter(end);
+        if (from < 0 || to > DAYS) {
+            return false;
+        }
+        for (long day = from; day < to; ) {
+            int word = (int) (day / WORD_BITS);
+            int bits = (int) Math.min(WORD_BITS - day % WORD_BITS, to - day);
+            if ((words[word] & mask(day, bits)) != 0) {
+                return false;
+            }
+            day += bits;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the end of the last day touched by a range ending at the given time.
+     */
+    static LocalDateTime ceilToDay(LocalDateTime end) {
+        LocalDate day = end.toLocalDate();
+        return end.toLocalTime().equals(LocalTime.MIDNIGHT) ? day.atStartOfDay() : day.plusDays(1).atStartOfDay();
+    }
+
+    private long dayOf(LocalDateTime dateTime) {
+        return ChronoUnit.DAYS.between(firstDay, dateTime.toLocalDate());
+    }
+
+    private long dayAfter(LocalDateTime end) {
+        return ChronoUnit.DAYS.between(firstDay, ceilToDay(end).toLocalDate());
+    }
+
+    private static long mask(long day, int bits) {
+        long ones = bits == WORD_BITS ? -1L : (1L << bits) - 1;
+        return ones << (day % WORD_BITS);
+    }
+}
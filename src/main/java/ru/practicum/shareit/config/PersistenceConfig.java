@@ -1,18 +1,28 @@
 package ru.practicum.shareit.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
 import java.util.Properties;
 
 @Configuration
@@ -30,25 +40,70 @@ public class PersistenceConfig {
         Properties properties = new Properties();
         properties.put("hibernate.dialect", environment.getRequiredProperty("spring.jpa.properties.hibernate.dialect"));
         properties.put("hibernate.show_sql", environment.getProperty("hibernate.show_sql", "false"));
-        properties.put("javax.persistence.schema-generation.database.action",
-                environment.getProperty("javax.persistence.schema-generation.database.action", "none"));
-        properties.put("javax.persistence.schema-generation.create-script-source",
-                environment.getProperty("javax.persistence.schema-generation.create-script-source"));
+        properties.put("hibernate.jdbc.batch_size", environment.getProperty("hibernate.jdbc.batch_size", "50"));
+        properties.put("hibernate.order_inserts", environment.getProperty("hibernate.order_inserts", "true"));
+        properties.put("hibernate.cache.use_second_level_cache",
+                environment.getProperty("spring.jpa.properties.hibernate.cache.use_second_level_cache", "false"));
+        properties.put("hibernate.cache.region.factory_class",
+                environment.getProperty("spring.jpa.properties.hibernate.cache.region.factory_class", "jcache"));
+        properties.put("hibernate.generate_statistics",
+                environment.getProperty("spring.jpa.properties.hibernate.generate_statistics", "false"));
+        String statementInspector =
+                environment.getProperty("spring.jpa.properties.hibernate.session_factory.statement_inspector");
+        if (statementInspector != null) {
+            properties.put("hibernate.session_factory.statement_inspector", statementInspector);
+        }
         return properties;
     }
 
+    /**
+     * Connection pool sized by spring.datasource.hikari.*. Driver settings such as statement caching go to
+     * spring.datasource.hikari.data-source-properties.*; pool metrics are published by the actuator.
+     */
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(environment.getRequiredProperty("spring.datasource.driver-class-name"));
-        dataSource.setUrl(environment.getRequiredProperty("spring.datasource.url"));
-        dataSource.setUsername(environment.getRequiredProperty("spring.datasource.username"));
-        dataSource.setPassword(environment.getRequiredProperty("spring.datasource.password"));
-        return dataSource;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(environment.getProperty("spring.datasource.hikari.pool-name", "shareit"));
+        config.setDriverClassName(environment.getRequiredProperty("spring.datasource.driver-class-name"));
+        config.setJdbcUrl(environment.getRequiredProperty("spring.datasource.url"));
+        config.setUsername(environment.getRequiredProperty("spring.datasource.username"));
+        config.setPassword(environment.getRequiredProperty("spring.datasource.password"));
+        config.setMaximumPoolSize(environment.getProperty("spring.datasource.hikari.maximum-pool-size",
+                Integer.class, 10));
+        config.setMinimumIdle(environment.getProperty("spring.datasource.hikari.minimum-idle", Integer.class, 2));
+        config.setConnectionTimeout(environment.getProperty("spring.datasource.hikari.connection-timeout",
+                Long.class, 30_000L));
+        config.setLeakDetectionThreshold(environment.getProperty("spring.datasource.hikari.leak-detection-threshold",
+                Long.class, 0L));
+        Binder.get(environment)
+            .bind("spring.datasource.hikari.data-source-properties", Bindable.mapOf(String.class, String.class))
+            .orElse(Map.of())
+            .forEach(config::addDataSourceProperty);
+        return new HikariDataSource(config);
+    }
+
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(DataSource dataSource) {
+        return new SchemaMigrator(dataSource);
+    }
+
+    /**
+     * Caching provider of the second-level cache. Each context creates its own provider instead of using the
+     * process-wide one from {@link Caching}, so every entity manager factory gets its own cache manager and
+     * closing one context cannot close the caches of another.
+     */
+    @Bean(destroyMethod = "close")
+    public CachingProvider cachingProvider() throws ReflectiveOperationException {
+        String provider = environment.getProperty("spring.jpa.properties.hibernate.javax.cache.provider",
+                "org.ehcache.jsr107.EhcacheCachingProvider");
+        return (CachingProvider) Class.forName(provider).getDeclaredConstructor().newInstance();
     }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    @DependsOn("schemaMigrator")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+                                                                       CachingProvider cachingProvider)
+            throws URISyntaxException {
         final LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
         emf.setDataSource(dataSource);
         emf.setPackagesToScan("ru.practicum.shareit");
@@ -56,6 +111,13 @@ public class PersistenceConfig {
         final HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         emf.setJpaVendorAdapter(vendorAdapter);
         emf.setJpaProperties(hibernateProperties());
+        ClassLoader classLoader = getClass().getClassLoader();
+        String cacheConfig = environment.getProperty("spring.jpa.properties.hibernate.javax.cache.uri",
+                "ehcache.xml");
+        URL cacheResource = classLoader.getResource(cacheConfig);
+        URI cacheUri = cacheResource != null ? cacheResource.toURI() : new URI(cacheConfig);
+        emf.getJpaPropertyMap().put("hibernate.javax.cache.cache_manager",
+                cachingProvider.getCacheManager(cacheUri, classLoader));
 
         return emf;
     }
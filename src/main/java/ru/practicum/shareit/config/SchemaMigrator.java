@@ -0,0 +1,95 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Applies classpath:db/migration/V&lt;version&gt;__&lt;description&gt;.sql scripts that are newer than the
+ * version recorded in the schema_version table, each in its own transaction.
+ */
+public class SchemaMigrator {
+    static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    public void migrate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL, " +
+                "description VARCHAR(255) NOT NULL, installed_on timestamp NOT NULL, " +
+                "CONSTRAINT pk_schema_version PRIMARY KEY (version))");
+        int current = getCurrentVersion();
+        for (Migration migration : findMigrations()) {
+            if (migration.version > current) {
+                transactionTemplate.executeWithoutResult(status -> apply(migration));
+            }
+        }
+    }
+
+    public int getCurrentVersion() {
+        Integer version = jdbcTemplate.queryForObject("SELECT MAX(version) FROM schema_version", Integer.class);
+        return version == null ? 0 : version;
+    }
+
+    private void apply(Migration migration) {
+        new ResourceDatabasePopulator(migration.script).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO schema_version (version, description, installed_on) VALUES (?, ?, ?)",
+                migration.version, migration.description, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private List<Migration> findMigrations() {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Arrays.stream(resources)
+            .map(Migration::of)
+            .sorted(Comparator.comparingInt(migration -> migration.version))
+            .collect(Collectors.toList());
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final Resource script;
+
+        private Migration(int version, String description, Resource script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+        }
+
+        private static Migration of(Resource script) {
+            Matcher matcher = FILE_NAME.matcher(String.valueOf(script.getFilename()));
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Bad migration name: " + script.getFilename());
+            }
+            return new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), script);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
@@ -10,6 +11,9 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query(value = "select co from Comment as co join co.item as i where i.id = ?1 order by co.id")
     List<Comment> getCommentsForItem(long itemId);
 
+    @Query(value = "select co from Comment as co join fetch co.author where co.item.id in ?1 order by co.id")
+    List<Comment> getCommentsForItems(Collection<Long> itemIds);
+
     @Query(value = "select co from Comment as co join co.author as com where com.id = ?1 order by co.id")
     List<Comment> getCommentsOfAuthor(long userId);
 }
\ No newline at end of file
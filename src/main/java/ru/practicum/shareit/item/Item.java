@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import ru.practicum.shareit.request.Request;
@@ -12,6 +14,8 @@ import javax.validation.constraints.NotNull;
 
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @EqualsAndHashCode
 @NoArgsConstructor
@@ -21,7 +25,7 @@ public class Item {
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "owner_id", nullable = false)
+    @JoinColumn(name = "owner_id", nullable = false, updatable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @ToString.Exclude
     private User owner;
@@ -43,4 +47,7 @@ public class Item {
     @NotNull
     @Column(name = "is_available")
     private Boolean available;
+
+    @Version
+    private long version;
 }
\ No newline at end of file
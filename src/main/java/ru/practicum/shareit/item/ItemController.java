@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.FreeIntervalDto;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -47,9 +48,26 @@ public class ItemController {
     @GetMapping("/search")
     public List<ItemDto> search(@RequestHeader("X-Sharer-User-Id") Long userId,
                                 @RequestParam String text,
+                                @RequestParam(required = false) String start,
+                                @RequestParam(required = false) String end,
                                 @RequestParam(required = false, defaultValue = "0") Integer from,
                                 @RequestParam(required = false, defaultValue = "20") Integer size) {
-        return itemService.search(text, from, size);
+        return itemService.search(text, start, end, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix,
+                                @RequestParam(required = false, defaultValue = "10") Integer size) {
+        return itemService.suggest(prefix, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<FreeIntervalDto> getAvailability(@PathVariable Long itemId,
+                                                 @RequestParam(required = false) String from,
+                                                 @RequestParam(required = false) String to,
+                                                 @RequestParam(required = false, defaultValue = "false")
+                                                 Boolean includeWaiting) {
+        return itemService.getAvailability(itemId, from, to, includeWaiting);
     }
 
     @PostMapping("{itemId}/comment")
@@ -1,18 +1,19 @@
 package ru.practicum.shareit.item;
 
 import java.util.List;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     @Query(value = "select it from Item as it join it.owner as u where u.id = ?1 order by it.id")
-    Page<Item> getItemsByOwner(long userId, Pageable pageable);
+    Slice<Item> getItemsByOwner(long userId, Pageable pageable);
 
-    Page<Item> findByAvailableAndDescriptionContainingIgnoreCaseOrderById(Boolean available, String text,
-                                                                          Pageable pageable);
+    @Query(value = "select new ru.practicum.shareit.item.ItemText(it.id, it.name, it.description) from Item as it " +
+            "where it.available = true and it.id > ?1 order by it.id")
+    List<ItemText> getAvailableItemTexts(long afterId, Pageable pageable);
 
     List<Item> findByRequestId(Long requestId);
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.ExpiringCache;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Pages of text search results kept for a short time, least recently used evicted first. An item change drops
+ * only the pages of queries contained in the item's old or new text, as only those can list the item; the drop is
+ * repeated when the transaction completes, so a page filled in the meantime from uncommitted state is not kept.
+ */
+@Component
+public class ItemSearchCache {
+    private final ExpiringCache<Key, List<ItemDto>> pages;
+
+    @Autowired
+    public ItemSearchCache(@Value("${item.search-cache.ttl-millis:30000}") long ttlMillis,
+                           @Value("${item.search-cache.max-size:1000}") int maxSize) {
+        this(Clock.systemDefaultZone(), Duration.ofMillis(ttlMillis), maxSize);
+        pages.bindMetrics("item.search.cache");
+    }
+
+    ItemSearchCache(Clock clock, Duration ttl, int maxSize) {
+        pages = new ExpiringCache<>(clock, ttl, maxSize);
+    }
+
+    /**
+     * Returns the cached page for the query, or loads and caches it.
+     */
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        return new ArrayList<>(pages.get(new Key(text.toLowerCase(Locale.ROOT), from, size),
+                () -> List.copyOf(loader.get())));
+    }
+
+    /**
+     * Drops the pages of every query found in one of the texts, now and again once the transaction completes.
+     * Callers pass the item's name and description before and after the change.
+     */
+    public void invalidate(String... texts) {
+        List<String> lowerCase = new ArrayList<>();
+        for (String text : texts) {
+            if (text != null) {
+                lowerCase.add(text.toLowerCase(Locale.ROOT));
+            }
+        }
+        drop(lowerCase);
+        Transactions.afterCompletion(() -> drop(lowerCase));
+    }
+
+    public ExpiringCache.Stats getStats() {
+        return pages.getStats();
+    }
+
+    private void drop(List<String> texts) {
+        pages.removeIf(key -> texts.stream().anyMatch(text -> text.contains(key.getText())));
+    }
+
+    @lombok.Value
+    private static class Key {
+        String text;
+        int from;
+        int size;
+    }
+}
@@ -0,0 +1,363 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.Transactions;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory trigram index over names and descriptions of available items, matching the text anywhere in either
+ * field regardless of case. It is built from the items table at startup and kept in step with item changes. A
+ * search intersects the posting lists of the query trigrams, starting from the shortest one, and confirms each
+ * candidate with an exact substring check; queries shorter than a trigram check every item. Ranked searches
+ * score hits BM25-style per query word, weighting name matches above description ones, and keep only the best
+ * hits in a bounded heap. Names are also kept in a trie for prefix suggestions.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    private static final int GRAM = 3;
+    private static final int RANK_CHUNK_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_BOOST = 3.0;
+    private static final Comparator<ScoredItem> WORST_FIRST = Comparator.comparingDouble(ScoredItem::getScore)
+            .thenComparing(Comparator.comparingLong(ScoredItem::getId).reversed());
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, IndexedText> textsByItem = new HashMap<>();
+    private final PostingList allItems = new PostingList();
+    private final NameTrie names = new NameTrie(MAX_SUGGESTIONS);
+    private long totalLength;
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            textsByItem.clear();
+            allItems.clear();
+            names.clear();
+            totalLength = 0;
+            long lastId = 0;
+            List<ItemText> chunk;
+            do {
+                chunk = itemRepository.getAvailableItemTexts(lastId, PageRequest.of(0, LOAD_CHUNK_SIZE));
+                for (ItemText text : chunk) {
+                    put(text.getId(), new IndexedText(text.getName(), text.getDescription()));
+                    lastId = text.getId();
+                }
+            } while (chunk.size() == LOAD_CHUNK_SIZE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the current name and description of the item, or drops it if the item is unavailable. The previous
+     * entry is restored if the current transaction rolls back.
+     */
+    public void index(Item item) {
+        update(item.getId(), item.getAvailable() ? new IndexedText(item.getName(), item.getDescription()) : null);
+    }
+
+    public void remove(long itemId) {
+        update(itemId, null);
+    }
+
+    public List<Long> search(String text) {
+        return search(text, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns up to limit ids greater than afterId of available items whose name or description contains the text
+     * ignoring case, in increasing order. The walk stops as soon as the limit is reached.
+     */
+    public List<Long> search(String text, long afterId, int limit) {
+        String query = text.toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>();
+            if (query.length() < GRAM) {
+                lists.add(allItems);
+            } else {
+                for (long gram : grams(query)) {
+                    PostingList list = postings.get(gram);
+                    if (list == null) {
+                        return new ArrayList<>();
+                    }
+                    lists.add(list);
+                }
+                lists.sort(Comparator.comparingInt(PostingList::size));
+            }
+            PostingList shortest = lists.get(0);
+            List<Long> ids = new ArrayList<>();
+            for (int i = shortest.indexAfter(afterId); i < shortest.size() && ids.size() < limit; i++) {
+                long id = shortest.get(i);
+                if (containedInAll(lists, id) && matches(textsByItem.get(id), query)) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best limit hits, best first, with ties broken by id. Hits are read in chunks and passed
+     * through the filter outside the index lock, so the filter may query the database; only the current best hits
+     * are kept, never the whole hit list.
+     */
+    public List<Long> searchRanked(String text, int limit, UnaryOperator<List<Long>> filter) {
+        String[] words = words(text.toLowerCase(Locale.ROOT));
+        PriorityQueue<ScoredItem> best = new PriorityQueue<>(WORST_FIRST);
+        long afterId = 0;
+        List<Long> chunk;
+        do {
+            chunk = search(text, afterId, RANK_CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1);
+            List<Long> hits = filter.apply(chunk);
+            lock.readLock().lock();
+            try {
+                double[] idf = idf(words);
+                double averageLength = textsByItem.isEmpty() ? 1 : (double) totalLength / textsByItem.size();
+                for (long id : hits) {
+                    IndexedText texts = textsByItem.get(id);
+                    if (texts == null) {
+                        continue;
+                    }
+                    ScoredItem hit = new ScoredItem(id, score(texts, words, idf, averageLength));
+                    if (best.size() < limit) {
+                        best.add(hit);
+                    } else if (limit > 0 && WORST_FIRST.compare(hit, best.peek()) > 0) {
+                        best.poll();
+                        best.add(hit);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        } while (chunk.size() == RANK_CHUNK_SIZE);
+        List<ScoredItem> ranked = new ArrayList<>(best);
+        ranked.sort(WORST_FIRST.reversed());
+        return ranked.stream()
+            .map(ScoredItem::getId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns up to limit names of available items starting with the prefix ignoring case, the most common first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        if (key.isBlank()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return names.complete(key, Math.min(limit, MAX_SUGGESTIONS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return textsByItem.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the distinct trigrams of the texts, each packed into a long, in increasing order.
+     */
+    static long[] grams(String... texts) {
+        int count = 0;
+        for (String text : texts) {
+            count += Math.max(text.length() - GRAM + 1, 0);
+        }
+        long[] grams = new long[count];
+        int index = 0;
+        for (String text : texts) {
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                grams[index++] = (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Splits the text into runs of letters and digits.
+     */
+    static String[] words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Estimates the inverse document frequency of each word; the shortest posting list of its trigrams bounds the
+     * number of items containing it.
+     */
+    private double[] idf(String[] words) {
+        int count = textsByItem.size();
+        double[] idf = new double[words.length];
+        for (int i = 0; i < words.length; i++) {
+            int frequency = count;
+            if (words[i].length() >= GRAM) {
+                for (long gram : grams(words[i])) {
+                    PostingList list = postings.get(gram);
+                    frequency = Math.min(frequency, list == null ? 0 : list.size());
+                }
+            }
+            idf[i] = Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+        }
+        return idf;
+    }
+
+    private static double score(IndexedText texts, String[] words, double[] idf, double averageLength) {
+        double length = texts.length();
+        double norm = K1 * (1 - B + B * length / averageLength);
+        double score = 0;
+        for (int i = 0; i < words.length; i++) {
+            double frequency = NAME_BOOST * occurrences(texts.getName(), words[i])
+                    + occurrences(texts.getDescription(), words[i]);
+            score += idf[i] * frequency * (K1 + 1) / (frequency + norm);
+        }
+        return score;
+    }
+
+    private static int occurrences(String text, String word) {
+        int count = 0;
+        for (int index = text.indexOf(word); index >= 0; index = text.indexOf(word, index + word.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private void update(long itemId, IndexedText texts) {
+        IndexedText previous;
+        lock.writeLock().lock();
+        try {
+            previous = put(itemId, texts);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Transactions.onRollback(() -> {
+            lock.writeLock().lock();
+            try {
+                put(itemId, previous);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private IndexedText put(long itemId, IndexedText texts) {
+        IndexedText previous = texts == null ? textsByItem.remove(itemId) : textsByItem.put(itemId, texts);
+        if (previous != null) {
+            for (long gram : grams(previous.getName(), previous.getDescription())) {
+                PostingList list = postings.get(gram);
+                list.remove(itemId);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+            allItems.remove(itemId);
+            totalLength -= previous.length();
+            names.remove(previous.getName());
+        }
+        if (texts != null) {
+            for (long gram : grams(texts.getName(), texts.getDescription())) {
+                postings.computeIfAbsent(gram, key -> new PostingList()).add(itemId);
+            }
+            allItems.add(itemId);
+            totalLength += texts.length();
+            names.add(texts.getName(), texts.getDisplayName());
+        }
+        return previous;
+    }
+
+    private static boolean matches(IndexedText texts, String query) {
+        return texts.getName().contains(query) || texts.getDescription().contains(query);
+    }
+
+    private static boolean containedInAll(List<PostingList> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower-cased name and description of an indexed item, plus the name as entered for suggestions.
+     */
+    @Value
+    private static class IndexedText {
+        String displayName;
+        String name;
+        String description;
+
+        IndexedText(String name, String description) {
+            this.displayName = name == null ? "" : name;
+            this.name = displayName.toLowerCase(Locale.ROOT);
+            this.description = description == null ? "" : description.toLowerCase(Locale.ROOT);
+        }
+
+        int length() {
+            return name.length() + description.length();
+        }
+    }
+
+    @Value
+    private static class ScoredItem {
+        long id;
+        double score;
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.FreeIntervalDto;
+
 import java.util.List;
 
 public interface ItemService {
@@ -18,7 +20,11 @@ public interface ItemService {
 
     List<ItemDto> getItemsByOwner(long userId, int from, int size);
 
-    List<ItemDto> search(String text, int from, int size);
+    List<ItemDto> search(String text, String start, String end, int from, int size);
+
+    List<String> suggest(String prefix, int size);
+
+    List<FreeIntervalDto> getAvailability(long itemId, String from, String to, boolean includeWaiting);
 
     @Transactional
     CommentDto addComment(long userId, long itemId, CommentDto commentDto);
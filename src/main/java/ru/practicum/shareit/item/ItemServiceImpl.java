@@ -1,11 +1,14 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.*;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -14,17 +17,30 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.request.Request;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int DEFAULT_AVAILABILITY_DAYS = 30;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final RequestRepository requestRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemViewCache itemViewCache;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional
     @Override
@@ -34,6 +50,8 @@ public class ItemServiceImpl implements ItemService {
                 new NotFoundException("Request not found.")) : null;
         Item item = ItemMapper.mapToItem(itemDto, user, request);
         item = itemRepository.saveAndFlush(item);
+        itemSearchIndex.index(item);
+        itemSearchCache.invalidate(item.getName(), item.getDescription());
         return ItemMapper.mapToItemDto(item, null, null, new HashSet<>());
     }
 
@@ -44,6 +62,10 @@ public class ItemServiceImpl implements ItemService {
         if (userId != item.getOwner().getId()) {
             throw new NotFoundException("This item has another owner.");
         }
+        String oldName = item.getName();
+        String oldDescription = item.getDescription();
+        Boolean oldAvailable = item.getAvailable();
+        Long oldRequestId = item.getRequest() == null ? null : item.getRequest().getId();
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -57,12 +79,19 @@ public class ItemServiceImpl implements ItemService {
                 new NotFoundException("Request not found.")) : null;
         item.setRequest(request);
         item = itemRepository.saveAndFlush(item);
-        List<Booking> bookingsPast = bookingRepository.getBookingOnePast(item);
-        BookingShotDto bookingPast = bookingsPast.isEmpty() ? null :
-                BookingMapper.mapToBookingShotDto(bookingsPast.get(0));
-        List<Booking> bookingsNext = bookingRepository.getBookingOneFutureAllStatuses(item);
-        BookingShotDto bookingNext = bookingsNext.isEmpty() ? null :
-                BookingMapper.mapToBookingShotDto(bookingsNext.get(0));
+        itemSearchIndex.index(item);
+        itemViewCache.invalidate(itemId);
+        if (!Objects.equals(oldName, item.getName()) || !Objects.equals(oldDescription, item.getDescription())
+                || !Objects.equals(oldAvailable, item.getAvailable())
+                || !Objects.equals(oldRequestId, itemDto.getRequestId())) {
+            itemSearchCache.invalidate(oldName, oldDescription, item.getName(), item.getDescription());
+        }
+        BookingShotDto bookingPast = bookingRepository.getBookingOnePast(item)
+                .map(BookingMapper::mapToBookingShotDto)
+                .orElse(null);
+        BookingShotDto bookingNext = bookingRepository.getBookingOneFutureAllStatuses(item)
+                .map(BookingMapper::mapToBookingShotDto)
+                .orElse(null);
         List<Comment> comments = commentRepository.getCommentsForItem(item.getId());
         Set<CommentDto> commentsDto = new HashSet<>(CommentMapper.mapToCommentsDto(comments));
         return ItemMapper.mapToItemDto(item, bookingPast, bookingNext, commentsDto);
@@ -75,62 +104,107 @@ public class ItemServiceImpl implements ItemService {
             throw new NotFoundException("This item has another owner.");
         }
         itemRepository.deleteById(itemId);
+        bookingIntervalIndex.evict(itemId);
+        itemSearchIndex.remove(itemId);
+        itemSearchCache.invalidate(item.getName(), item.getDescription());
+        itemViewCache.invalidate(itemId);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
     public ItemDto getItem(long userId, long itemId) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Item not found."));
-        List<Booking> bookingsPast = bookingRepository.getBookingOnePast(item);
-        BookingShotDto bookingPast = bookingsPast.isEmpty() ? null :
-                BookingMapper.mapToBookingShotDto(bookingsPast.get(0));
-        List<Booking> bookingsNext = bookingRepository.getBookingOneFutureApproved(item);
-        BookingShotDto bookingNext = bookingsNext.isEmpty() ? null :
-                BookingMapper.mapToBookingShotDto(bookingsNext.get(0));
-        List<Comment> comments = commentRepository.getCommentsForItem(item.getId());
-        Set<CommentDto> commentsDto = new HashSet<>(CommentMapper.mapToCommentsDto(comments));
-        return ItemMapper.mapToItemDto(item, userId == item.getOwner().getId() ? bookingPast : null,
-                userId == item.getOwner().getId() ? bookingNext : null, commentsDto);
+        return itemViewCache.get(itemId, () -> loadView(itemId)).toItemDto(userId);
     }
 
     @Override
     public List<ItemDto> getItemsByOwner(long userId, int from, int size) {
         Pageable pageable = PageRequest.of(from, size);
-        Page<Item> items = itemRepository.getItemsByOwner(userId, pageable);
+        Slice<Item> items = itemRepository.getItemsByOwner(userId, pageable);
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> itemIds = items.stream()
+            .map(Item::getId)
+            .collect(Collectors.toSet());
+        Map<Long, Booking> bookingsPast = groupFirstByItem(bookingRepository.getBookingLastByItems(itemIds));
+        Map<Long, Booking> bookingsNext = groupFirstByItem(bookingRepository.getBookingNextAllStatusesByItems(itemIds));
+        Map<Long, Set<CommentDto>> comments = commentRepository.getCommentsForItems(itemIds).stream()
+            .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                    Collectors.mapping(CommentMapper::mapToCommentDto, Collectors.toSet())));
         List<ItemDto> itemsDto = new ArrayList<>();
         for (Item item : items) {
-            List<Booking> bookingsPast = bookingRepository.getBookingOnePast(item);
-            BookingShotDto bookingPast = bookingsPast.isEmpty() ? null :
-                    BookingMapper.mapToBookingShotDto(bookingsPast.get(0));
-            List<Booking> bookingsNext = bookingRepository.getBookingOneFutureAllStatuses(item);
-            BookingShotDto bookingNext = bookingsNext.isEmpty() ? null :
-                    BookingMapper.mapToBookingShotDto(bookingsNext.get(0));
-            List<Comment> comments = commentRepository.getCommentsForItem(item.getId());
-            Set<CommentDto> commentsDto = new HashSet<>(CommentMapper.mapToCommentsDto(comments));
-            itemsDto.add(ItemMapper.mapToItemDto(item, bookingPast, bookingNext, commentsDto));
+            Booking bookingPast = bookingsPast.get(item.getId());
+            Booking bookingNext = bookingsNext.get(item.getId());
+            itemsDto.add(ItemMapper.mapToItemDto(item,
+                    bookingPast == null ? null : BookingMapper.mapToBookingShotDto(bookingPast),
+                    bookingNext == null ? null : BookingMapper.mapToBookingShotDto(bookingNext),
+                    comments.getOrDefault(item.getId(), new HashSet<>())));
         }
         return itemsDto;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
-    public List<ItemDto> search(String text, int from, int size) {
-        if (text.isEmpty()) {
-            return new ArrayList<>();
-        } else {
-            Pageable pageable = PageRequest.of(from, size);
-            List<Item> items = itemRepository.findByAvailableAndDescriptionContainingIgnoreCaseOrderById(true,
-                    text, pageable).toList();
-            List<ItemDto> itemsDto = new ArrayList<>();
-            for (Item item : items) {
-                List<Booking> bookingsPast = bookingRepository.getBookingOnePast(item);
-                BookingShotDto bookingPast = bookingsPast.isEmpty() ? null :
-                        BookingMapper.mapToBookingShotDto(bookingsPast.get(0));
-                List<Booking> bookingsNext = bookingRepository.getBookingOneFutureApproved(item);
-                BookingShotDto bookingNext = bookingsNext.isEmpty() ? null :
-                        BookingMapper.mapToBookingShotDto(bookingsNext.get(0));
-                itemsDto.add(ItemMapper.mapToItemDto(item, bookingPast, bookingNext, null));
-            }
-            return itemsDto;
+    public List<ItemDto> search(String text, String start, String end, int from, int size) {
+        Pageable pageable = PageRequest.of(from, size);
+        int limit = (int) Math.min(pageable.getOffset() + size, Integer.MAX_VALUE);
+        if (start == null && end == null) {
+            return itemSearchCache.get(text, from, size, () -> mapToSearchResults(page(
+                    itemSearchIndex.searchRanked(text, limit, UnaryOperator.identity()), pageable)));
+        }
+        if (start == null || end == null) {
+            throw new BadRequestException("Wrong dates.");
+        }
+        LocalDateTime requestedStart;
+        LocalDateTime endDate;
+        try {
+            requestedStart = LocalDateTime.parse(start);
+            endDate = LocalDateTime.parse(end);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Wrong dates.");
         }
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        LocalDateTime startDate = requestedStart.isBefore(today) ? today : requestedStart;
+        if (!startDate.isBefore(endDate)) {
+            throw new BadRequestException("Wrong dates.");
+        }
+        return mapToSearchResults(page(itemSearchIndex.searchRanked(text, limit, ids ->
+                bookingIntervalIndex.filterFree(ids, startDate, endDate)), pageable));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public List<String> suggest(String prefix, int size) {
+        if (size < 1) {
+            throw new BadRequestException(String.format("Non-positive size: %d", size));
+        }
+        return itemSearchIndex.suggest(prefix, size);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public List<FreeIntervalDto> getAvailability(long itemId, String from, String to, boolean includeWaiting) {
+        if (!bookingIntervalIndex.isLoaded(itemId) && itemRepository.findById(itemId).isEmpty()) {
+            throw new NotFoundException("Item not found.");
+        }
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = from == null ? LocalDateTime.now().withNano(0) : LocalDateTime.parse(from);
+            end = to == null ? start.plusDays(DEFAULT_AVAILABILITY_DAYS) : LocalDateTime.parse(to);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Wrong dates.");
+        }
+        if (start.isBefore(today)) {
+            start = today;
+        }
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("Wrong dates.");
+        }
+        return bookingIntervalIndex.getFreeIntervals(itemId, start, end, includeWaiting).stream()
+            .map(BookingMapper::mapToFreeIntervalDto)
+            .collect(Collectors.toList());
     }
 
     @Transactional
@@ -145,7 +219,57 @@ public class ItemServiceImpl implements ItemService {
         if (commentDto.getText().isEmpty()) {
             throw new BadRequestException("Empty comment.");
         }
-        return CommentMapper.mapToCommentDto(commentRepository.saveAndFlush(CommentMapper.mapToComment(commentDto, user,
-                item)));
+        Comment comment = commentRepository.saveAndFlush(CommentMapper.mapToComment(commentDto, user, item));
+        itemViewCache.invalidate(itemId);
+        return CommentMapper.mapToCommentDto(comment);
+    }
+
+    private ItemView loadView(long itemId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            Item item = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Item not found."));
+            Optional<Booking> bookingPast = bookingRepository.getBookingOnePast(item);
+            Optional<Booking> bookingNext = bookingRepository.getBookingOneFutureApproved(item);
+            List<Comment> comments = commentRepository.getCommentsForItem(item.getId());
+            Set<CommentDto> commentsDto = new HashSet<>(CommentMapper.mapToCommentsDto(comments));
+            return new ItemView(ItemMapper.mapToItemDto(item, null, null, commentsDto), item.getOwner().getId(),
+                    bookingPast.map(BookingMapper::mapToBookingShotDto).orElse(null),
+                    bookingNext.map(BookingMapper::mapToBookingShotDto).orElse(null),
+                    bookingNext.map(Booking::getStartDate).orElse(null));
+        });
+    }
+
+    /**
+     * Resolves all ranked ids before paging, so an index entry of an item that is gone cannot shift the page.
+     * The ranked list is never longer than offset plus page size, so this is still a single query.
+     */
+    private List<Item> page(List<Long> ids, Pageable pageable) {
+        if (pageable.getOffset() >= ids.size()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+            .map(items::get)
+            .filter(Objects::nonNull)
+            .skip(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Search results are public, so they carry no booking details; that also keeps a page at a single query.
+     */
+    private List<ItemDto> mapToSearchResults(List<Item> items) {
+        return items.stream()
+            .map(item -> ItemMapper.mapToItemDto(item, null, null, null))
+            .collect(Collectors.toList());
+    }
+
+    private Map<Long, Booking> groupFirstByItem(List<Booking> bookings) {
+        return bookings.stream()
+            .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity(),
+                    (first, second) -> first.getId() < second.getId() ? first : second));
     }
 }
\ No newline at end of file
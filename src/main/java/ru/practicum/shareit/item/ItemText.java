@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item;
+
+import lombok.Value;
+
+@Value
+public class ItemText {
+    long id;
+    String name;
+    String description;
+}
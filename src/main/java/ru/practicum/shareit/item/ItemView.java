@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.BookingShotDto;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+/**
+ * An item as shown by getItem, assembled once and shared by all viewers. The last and next bookings are only
+ * handed out to the owner; nextBookingStart is when the view goes stale, as the next booking becomes the last one.
+ */
+@Value
+public class ItemView {
+    ItemDto item;
+    long ownerId;
+    BookingShotDto lastBooking;
+    BookingShotDto nextBooking;
+    LocalDateTime nextBookingStart;
+
+    public ItemDto toItemDto(long userId) {
+        ItemDto itemDto = new ItemDto(item.getId(), item.getUserId(), item.getName(), item.getDescription(),
+                item.getAvailable(), null, null, item.getRequestId(), new HashSet<>(item.getComments()));
+        if (userId == ownerId) {
+            itemDto.setLastBooking(lastBooking);
+            itemDto.setNextBooking(nextBooking);
+        }
+        return itemDto;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.util.ExpiringCache;
+import ru.practicum.shareit.util.Transactions;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Assembled item views per item id, least recently used evicted first. A view expires after the TTL or when its
+ * next booking starts. Item, comment and booking changes drop the item's view now and again once the
+ * transaction completes, so a view filled in the meantime from uncommitted state is not kept.
+ */
+@Component
+public class ItemViewCache {
+    private final ExpiringCache<Long, ItemView> views;
+
+    @Autowired
+    public ItemViewCache(@Value("${item.view-cache.ttl-millis:60000}") long ttlMillis,
+                         @Value("${item.view-cache.max-size:10000}") int maxSize) {
+        this(Clock.systemDefaultZone(), Duration.ofMillis(ttlMillis), maxSize);
+        views.bindMetrics("item.view.cache");
+    }
+
+    ItemViewCache(Clock clock, Duration ttl, int maxSize) {
+        views = new ExpiringCache<>(clock, ttl, maxSize, view -> view.getNextBookingStart() == null ? Instant.MAX :
+                view.getNextBookingStart().atZone(clock.getZone()).toInstant());
+    }
+
+    public ItemView get(long itemId, Supplier<ItemView> loader) {
+        return views.get(itemId, loader);
+    }
+
+    public void invalidate(long itemId) {
+        views.remove(itemId);
+        Transactions.afterCompletion(() -> views.remove(itemId));
+    }
+
+    public ExpiringCache.Stats getStats() {
+        return views.getStats();
+    }
+}
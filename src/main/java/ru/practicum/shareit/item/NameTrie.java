@@ -0,0 +1,188 @@
+package ru.practicum.shareit.item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Radix trie of lower-cased item names counting the items per name. Every node keeps the most common names below
+ * it, so a completion is a walk down the prefix plus a copy of one short list. Not thread-safe.
+ */
+class NameTrie {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::getCount).reversed()
+            .thenComparing(Entry::getKey);
+
+    private final int topSize;
+    private final Node root = new Node("");
+
+    NameTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    void add(String key, String name) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        String rest = key;
+        path.add(node);
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node(rest);
+                node.children.put(rest.charAt(0), child);
+            } else {
+                int common = commonPrefix(child.label, rest);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+            }
+            rest = rest.substring(child.label.length());
+            node = child;
+            path.add(node);
+        }
+        if (node.entry == null) {
+            node.entry = new Entry(key);
+        }
+        Entry entry = node.entry;
+        entry.count++;
+        entry.name = name;
+        for (Node step : path) {
+            step.top.remove(entry);
+            int index = 0;
+            while (index < step.top.size() && ORDER.compare(step.top.get(index), entry) < 0) {
+                index++;
+            }
+            if (index < topSize) {
+                step.top.add(index, entry);
+            }
+            if (step.top.size() > topSize) {
+                step.top.remove(topSize);
+            }
+        }
+    }
+
+    void remove(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        String rest = key;
+        path.add(node);
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null || !rest.startsWith(child.label)) {
+                return;
+            }
+            rest = rest.substring(child.label.length());
+            node = child;
+            path.add(node);
+        }
+        Entry entry = node.entry;
+        if (entry == null) {
+            return;
+        }
+        entry.count--;
+        if (entry.count == 0) {
+            node.entry = null;
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node step = path.get(i);
+            if (i > 0 && step.entry == null && step.children.isEmpty()) {
+                path.get(i - 1).children.remove(step.label.charAt(0));
+            } else if (step.top.contains(entry)) {
+                refreshTop(step);
+            }
+        }
+    }
+
+    /**
+     * Returns up to limit names starting with the prefix, most common first.
+     */
+    List<String> complete(String prefix, int limit) {
+        Node node = root;
+        String rest = prefix;
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            if (child.label.startsWith(rest)) {
+                node = child;
+                break;
+            }
+            if (!rest.startsWith(child.label)) {
+                return new ArrayList<>();
+            }
+            rest = rest.substring(child.label.length());
+            node = child;
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, node.top.size()); i++) {
+            names.add(node.top.get(i).name);
+        }
+        return names;
+    }
+
+    void clear() {
+        root.children.clear();
+        root.entry = null;
+        root.top.clear();
+    }
+
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        middle.top.addAll(child.top);
+        child.label = child.label.substring(at);
+        middle.children.put(child.label.charAt(0), child);
+        parent.children.put(middle.label.charAt(0), middle);
+        return middle;
+    }
+
+    private void refreshTop(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.entry != null) {
+            candidates.add(node.entry);
+        }
+        node.children.values().forEach(child -> candidates.addAll(child.top));
+        candidates.sort(ORDER);
+        node.top.clear();
+        node.top.addAll(candidates.subList(0, Math.min(topSize, candidates.size())));
+    }
+
+    private static int commonPrefix(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        int index = 0;
+        while (index < length && first.charAt(index) == second.charAt(index)) {
+            index++;
+        }
+        return index;
+    }
+
+    private static class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> top = new ArrayList<>(2);
+        private Entry entry;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private String name;
+        private int count;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        int getCount() {
+            return count;
+        }
+    }
+}
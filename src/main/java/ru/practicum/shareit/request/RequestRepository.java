@@ -1,7 +1,7 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -12,5 +12,5 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     List<Request> getRequestsByOwner(long userId);
 
     @Query(value = "select re from Request as re join re.requestor as r where r.id != ?1 order by re.id")
-    Page<Request> getRequestsByParam(long userId, Pageable pageable);
+    Slice<Request> getRequestsByParam(long userId, Pageable pageable);
 }
\ No newline at end of file
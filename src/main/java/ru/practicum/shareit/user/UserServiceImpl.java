@@ -53,4 +53,4 @@ public class UserServiceImpl implements UserService {
         List<User> users = userRepository.findAll();
         return UserMapper.mapToUserDto(users);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.util;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.Value;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A size-bounded map of loaded values that expire after a TTL or at a deadline of their own, whichever comes
+ * first; the least recently used value is evicted when full. Values are loaded outside the lock, and a value is
+ * not stored if anything was removed while it was loading, so a removal is never undone by a racing load.
+ */
+public class ExpiringCache<K, V> {
+    private final Clock clock;
+    private final Duration ttl;
+    private final int maxSize;
+    private final Function<V, Instant> deadline;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpiringCache(Clock clock, Duration ttl, int maxSize) {
+        this(clock, ttl, maxSize, value -> Instant.MAX);
+    }
+
+    public ExpiringCache(Clock clock, Duration ttl, int maxSize, Function<V, Instant> deadline) {
+        this.clock = clock;
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Publishes the hit, miss and eviction counts and the size as meters named after the cache.
+     */
+    public void bindMetrics(String name) {
+        Metrics.more().counter(name + ".requests", Tags.of("result", "hit"), this,
+                cache -> cache.getStats().getHits());
+        Metrics.more().counter(name + ".requests", Tags.of("result", "miss"), this,
+                cache -> cache.getStats().getMisses());
+        Metrics.more().counter(name + ".evictions", Tags.empty(), this,
+                cache -> cache.getStats().getEvictions());
+        Metrics.gauge(name + ".size", this, cache -> cache.getStats().getSize());
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        long loadedAt;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.getExpiresAt().isAfter(clock.instant())) {
+                hits++;
+                return entry.getValue();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadedAt = generation;
+        }
+        V value = loader.get();
+        synchronized (this) {
+            if (loadedAt == generation && maxSize > 0) {
+                Instant expiresAt = clock.instant().plus(ttl);
+                Instant valueDeadline = deadline.apply(value);
+                entries.put(key, new Entry<>(value, valueDeadline.isBefore(expiresAt) ? valueDeadline : expiresAt));
+                if (entries.size() > maxSize) {
+                    Iterator<K> eldest = entries.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void remove(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void removeIf(Predicate<K> filter) {
+        generation++;
+        entries.keySet().removeIf(filter);
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size());
+    }
+
+    @Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long evictions;
+        int size;
+    }
+
+    @Value
+    private static class Entry<V> {
+        V value;
+        Instant expiresAt;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Expires many timeouts with one background tick. Timeouts are hashed by deadline into a ring of buckets and a
+ * tick only visits the buckets that came due since the previous one, so scheduling and cancelling are O(1) and
+ * the cost of a tick does not depend on how many timeouts are far in the future.
+ */
+public class HashedWheelTimer<T> {
+    private final Clock clock;
+    private final long tickMillis;
+    private final Timeout<T>[] wheel;
+    private final Consumer<T> onExpire;
+    private long lastTick;
+    private int size;
+    private ScheduledExecutorService ticker;
+
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(Clock clock, Duration tick, int wheelSize, Consumer<T> onExpire) {
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new Timeout[wheelSize];
+        this.onExpire = onExpire;
+        this.lastTick = currentTick();
+    }
+
+    public synchronized Timeout<T> schedule(T value, Instant deadline) {
+        Timeout<T> timeout = new Timeout<>(value, Math.max(ceilTick(deadline.toEpochMilli()), lastTick + 1));
+        int bucket = bucketOf(timeout.deadlineTick);
+        timeout.next = wheel[bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        wheel[bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Returns false if the timeout has already expired or been cancelled.
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.done) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Expires every timeout whose deadline has passed. The callback runs outside the timer's lock.
+     */
+    public void advance() {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = currentTick();
+            long from = Math.max(lastTick + 1, now - wheel.length + 1);
+            for (long tick = from; tick <= now; tick++) {
+                Timeout<T> timeout = wheel[bucketOf(tick)];
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    if (timeout.deadlineTick <= now) {
+                        unlink(timeout);
+                        expired.add(timeout.value);
+                    }
+                    timeout = next;
+                }
+            }
+            lastTick = Math.max(lastTick, now);
+        }
+        expired.forEach(onExpire);
+    }
+
+    public synchronized void start() {
+        if (ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hashed-wheel-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[bucketOf(timeout.deadlineTick)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.done = true;
+        size--;
+    }
+
+    private long currentTick() {
+        return clock.millis() / tickMillis;
+    }
+
+    private long ceilTick(long millis) {
+        return Math.floorDiv(millis + tickMillis - 1, tickMillis);
+    }
+
+    private int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) wheel.length);
+    }
+
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean done;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
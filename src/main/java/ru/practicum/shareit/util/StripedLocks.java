@@ -0,0 +1,42 @@
+package ru.practicum.shareit.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by hashing keys onto them, so unrelated keys rarely contend.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int count) {
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of all keys, in stripe order to avoid deadlocks, and releases them when the current
+     * transaction completes.
+     */
+    public void lockUntilCompletion(Collection<Long> keys) {
+        int[] indexes = keys.stream()
+            .mapToInt(this::indexOf)
+            .distinct()
+            .sorted()
+            .toArray();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        Transactions.afterCompletion(() -> {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        });
+    }
+
+    private int indexOf(Long key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+}
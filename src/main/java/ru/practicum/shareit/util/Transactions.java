@@ -0,0 +1,87 @@
+package ru.practicum.shareit.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Hooks for keeping in-memory structures in step with the surrounding transaction.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Transactions {
+
+    /**
+     * Runs the action if the current transaction rolls back. Actions of one transaction run in reverse order of
+     * registration, like an undo log, and before any other completion callback, so they still run under the locks
+     * released on completion. Outside a transaction nothing is registered.
+     */
+    public static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        UndoLog undoLog = TransactionSynchronizationManager.getSynchronizations().stream()
+            .filter(UndoLog.class::isInstance)
+            .map(UndoLog.class::cast)
+            .findFirst()
+            .orElseGet(() -> {
+                UndoLog created = new UndoLog();
+                TransactionSynchronizationManager.registerSynchronization(created);
+                return created;
+            });
+        undoLog.actions.push(action);
+    }
+
+    /**
+     * Runs the action once the current transaction has committed or rolled back, or right away if there is no
+     * transaction.
+     */
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs the action once the current transaction has committed, or right away if there is no transaction.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static class UndoLog implements TransactionSynchronization {
+        private final Deque<Runnable> actions = new ArrayDeque<>();
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+                actions.forEach(Runnable::run);
+            }
+        }
+    }
+}
@@ -0,0 +1,3 @@
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+-- Moves the sequence past the existing ids one increment per row. H2 has no setval, and PostgreSQL takes no subquery in RESTART WITH.
+WITH RECURSIVE steps(step) AS (SELECT 0 UNION ALL SELECT step + 50 FROM steps WHERE step < (SELECT COALESCE(MAX(id), 0) FROM bookings)) SELECT COUNT(nextval('bookings_seq')) FROM steps;
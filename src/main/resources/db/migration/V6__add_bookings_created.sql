@@ -0,0 +1,2 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS created TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+CREATE INDEX IF NOT EXISTS ix_bookings_status_start ON bookings (status, start_date);
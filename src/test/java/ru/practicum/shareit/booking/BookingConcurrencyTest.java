@@ -0,0 +1,254 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.config.PersistenceConfig;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemSearchCache;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.ItemServiceImpl;
+import ru.practicum.shareit.item.ItemViewCache;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.UserServiceImpl;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = { "db.name=test"})
+@SpringJUnitConfig({PersistenceConfig.class, UserServiceImpl.class, ItemServiceImpl.class, BookingServiceImpl.class,
+        BookingIntervalIndex.class, BookingHolds.class,
+        ItemSearchIndex.class, ItemSearchCache.class, ItemViewCache.class})
+class BookingConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int BOOKINGS_PER_THREAD = 25;
+
+    private final DataSource dataSource;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private Long itemId;
+
+    @AfterEach
+    void cleanUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (itemId != null) {
+            jdbcTemplate.update("DELETE FROM bookings WHERE item_id = ?", itemId);
+            jdbcTemplate.update("DELETE FROM items WHERE id = ?", itemId);
+        }
+        userIds.forEach(userId -> jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId));
+    }
+
+    @Test
+    void concurrentBookings_neverApproveOverlappingIntervals() throws Exception {
+        // given
+        UserDto ownerDto = addUser("Alexey");
+        UserDto bookerDto = addUser("Ilya");
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Microwave oven");
+        itemDto.setDescription("Power compact microwave oven");
+        itemDto.setAvailable(true);
+        itemId = itemService.addItem(ownerDto.getId(), itemDto).getId();
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger approved = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            Random random = new Random(thread);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    int day = 1 + random.nextInt(30);
+                    BookingDto bookingDto = new BookingDto();
+                    bookingDto.setItemId(itemId);
+                    bookingDto.setStart(formatDate(LocalDateTime.now().plusDays(day)));
+                    bookingDto.setEnd(formatDate(LocalDateTime.now().plusDays(day + 1 + random.nextInt(3))));
+                    try {
+                        long bookingId = bookingService.addBooking(bookerDto.getId(), bookingDto).getId();
+                        bookingService.approveBooking(ownerDto.getId(), bookingId, true);
+                        approved.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        // the interval is already taken by another thread
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        log.info("{} threads, {} attempts, {} approved: {} attempts/s, {} approved/s", THREADS,
+                THREADS * BOOKINGS_PER_THREAD, approved.get(), Math.round(THREADS * BOOKINGS_PER_THREAD / seconds),
+                Math.round(approved.get() / seconds));
+
+        // then
+        List<BookingDto> bookings = bookingService.getBookingByOwner(ownerDto.getId(), "ALL", 0, 1000).stream()
+                .filter(bookingDto -> bookingDto.getStatus().equals(BookingStatus.APPROVED.toString()))
+                .collect(Collectors.toList());
+        assertThat(bookings.size(), equalTo(approved.get()));
+        assertThat(bookings.size(), greaterThan(0));
+        for (int i = 0; i < bookings.size(); i++) {
+            for (int j = i + 1; j < bookings.size(); j++) {
+                BookingDto first = bookings.get(i);
+                BookingDto second = bookings.get(j);
+                boolean overlaps = LocalDateTime.parse(first.getStart()).isBefore(LocalDateTime.parse(second.getEnd()))
+                        && LocalDateTime.parse(second.getStart()).isBefore(LocalDateTime.parse(first.getEnd()));
+                assertThat(first.getId() + " overlaps " + second.getId(), overlaps, equalTo(false));
+            }
+        }
+    }
+
+    @Test
+    void concurrentDecisions_decideEachBookingOnce() throws Exception {
+        // given
+        UserDto ownerDto = addUser("Alexey");
+        UserDto bookerDto = addUser("Ilya");
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Microwave oven");
+        itemDto.setDescription("Power compact microwave oven");
+        itemDto.setAvailable(true);
+        itemId = itemService.addItem(ownerDto.getId(), itemDto).getId();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int day = 1; day <= BOOKINGS_PER_THREAD; day++) {
+            BookingDto bookingDto = new BookingDto();
+            bookingDto.setItemId(itemId);
+            bookingDto.setStart(formatDate(LocalDateTime.now().plusDays(2L * day)));
+            bookingDto.setEnd(formatDate(LocalDateTime.now().plusDays(2L * day + 1)));
+            bookingIds.add(bookingService.addBooking(bookerDto.getId(), bookingDto).getId());
+        }
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Map<Long, String> decided = new ConcurrentHashMap<>();
+        AtomicInteger conflicts = new AtomicInteger();
+        for (long bookingId : bookingIds) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (boolean approved : new boolean[]{true, false}) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        BookingDto bookingDto = bookingService.approveBookings(ownerDto.getId(),
+                                List.of(new BookingDecision(bookingId, approved))).get(0);
+                        assertThat(decided.put(bookingId, bookingDto.getStatus()), equalTo(null));
+                    } catch (BadRequestException | OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(decided.size(), equalTo(bookingIds.size()));
+        assertThat(conflicts.get(), equalTo(bookingIds.size()));
+        for (BookingDto bookingDto : bookingService.getBookingByOwner(ownerDto.getId(), "ALL", 0, 1000)) {
+            assertThat(bookingDto.getStatus(), equalTo(decided.get(bookingDto.getId())));
+        }
+    }
+
+    @Test
+    void concurrentConfirms_bookEachHoldOnce() throws Exception {
+        // given
+        UserDto ownerDto = addUser("Alexey");
+        UserDto bookerDto = addUser("Ilya");
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Microwave oven");
+        itemDto.setDescription("Power compact microwave oven");
+        itemDto.setAvailable(true);
+        itemId = itemService.addItem(ownerDto.getId(), itemDto).getId();
+        List<Long> holdIds = new ArrayList<>();
+        for (int day = 1; day <= BOOKINGS_PER_THREAD; day++) {
+            BookingDto bookingDto = new BookingDto();
+            bookingDto.setItemId(itemId);
+            bookingDto.setStart(formatDate(LocalDateTime.now().plusDays(2L * day)));
+            bookingDto.setEnd(formatDate(LocalDateTime.now().plusDays(2L * day + 1)));
+            holdIds.add(bookingService.holdBooking(bookerDto.getId(), bookingDto, 15).getId());
+        }
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger missing = new AtomicInteger();
+        for (long holdId : holdIds) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 2; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.confirmHold(bookerDto.getId(), holdId);
+                        confirmed.incrementAndGet();
+                    } catch (NotFoundException e) {
+                        missing.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(confirmed.get(), equalTo(holdIds.size()));
+        assertThat(missing.get(), equalTo(holdIds.size()));
+        assertThat(bookingService.getBookingByOwner(ownerDto.getId(), "ALL", 0, 1000).size(),
+                equalTo(holdIds.size()));
+    }
+
+    private UserDto addUser(String name) {
+        UserDto userDto = userService.addUser(new UserDto(null, name, UUID.randomUUID() + "@ya.ru"));
+        userIds.add(userDto.getId());
+        return userDto;
+    }
+
+    private String formatDate(LocalDateTime date) {
+        return date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
+    }
+}
@@ -23,6 +23,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,6 +39,9 @@ class BookingControllerTest {
     @Mock
     private BookingService bookingService;
 
+    @Mock
+    private BookingWriteQueue bookingWriteQueue;
+
     @InjectMocks
     private BookingController controller;
 
@@ -120,6 +124,27 @@ class BookingControllerTest {
         verifyNoMoreInteractions(bookingService);
     }
 
+    @Test
+    void addBooking_write_queue() throws Exception {
+        when(bookingWriteQueue.isEnabled())
+                .thenReturn(true);
+        when(bookingWriteQueue.addBooking(eq(1L), any()))
+                .thenReturn(bookingDto);
+
+        mvc.perform(post("/bookings")
+                        .headers(headers)
+                        .content(mapper.writeValueAsString(bookingDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$.status", is(bookingDto.getStatus())));
+
+        verify(bookingWriteQueue, times(1)).addBooking(eq(1L), any());
+        verifyNoInteractions(bookingService);
+    }
+
     @Test
     void approveBooking() throws Exception {
         BookingDto approvedBookingDto = bookingDto;
@@ -181,6 +206,87 @@ class BookingControllerTest {
         verifyNoMoreInteractions(bookingService);
     }
 
+    @Test
+    void addBookings() throws Exception {
+        when(bookingService.addBookings(eq(userDto.getId()), any()))
+                .thenReturn(List.of(new BookingBatchResult(0, bookingDto, null),
+                        new BookingBatchResult(1, null, "Wrong dates.")));
+
+        mvc.perform(post("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(bookingDto, bookingDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .headers(headers))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].error", is("Wrong dates.")));
+
+        verify(bookingService, times(1)).addBookings(eq(userDto.getId()), any());
+        verifyNoMoreInteractions(bookingService);
+    }
+
+    @Test
+    void approveBookings() throws Exception {
+        List<BookingDecision> decisions = List.of(new BookingDecision(bookingDto.getId(), true));
+        when(bookingService.approveBookings(eq(userDto.getId()), eq(decisions)))
+                .thenReturn(List.of(bookingDto));
+
+        mvc.perform(patch("/bookings")
+                        .content(mapper.writeValueAsString(decisions))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .headers(headers))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class));
+
+        verify(bookingService, times(1)).approveBookings(eq(userDto.getId()), eq(decisions));
+        verifyNoMoreInteractions(bookingService);
+    }
+
+    @Test
+    void holdBooking() throws Exception {
+        BookingHoldDto holdDto = new BookingHoldDto(1L, bookingDto.getItemId(), bookingDto.getStart(),
+                bookingDto.getEnd(), bookingDto.getStart());
+        when(bookingService.holdBooking(eq(userDto.getId()), any(), eq(10)))
+                .thenReturn(holdDto);
+
+        mvc.perform(post("/bookings/hold")
+                        .content(mapper.writeValueAsString(bookingDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .headers(headers)
+                        .param("minutes", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(holdDto.getId()), Long.class))
+                .andExpect(jsonPath("$.itemId", is(holdDto.getItemId()), Long.class))
+                .andExpect(jsonPath("$.expiresAt", is(holdDto.getExpiresAt())));
+
+        verify(bookingService, times(1)).holdBooking(eq(userDto.getId()), any(), eq(10));
+        verifyNoMoreInteractions(bookingService);
+    }
+
+    @Test
+    void confirmHold() throws Exception {
+        when(bookingService.confirmHold(eq(userDto.getId()), eq(1L)))
+                .thenReturn(bookingDto);
+
+        mvc.perform(post("/bookings/hold/1/confirm")
+                        .headers(headers))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$.status", is(bookingDto.getStatus())));
+
+        verify(bookingService, times(1)).confirmHold(eq(userDto.getId()), eq(1L));
+        verifyNoMoreInteractions(bookingService);
+    }
+
     @Test
     void getBookingByBooker() throws Exception {
         when(bookingService.getBookingByBooker(eq(userDto.getId()), eq("WAITING"), eq(0), eq(1000)))
@@ -230,4 +336,40 @@ class BookingControllerTest {
                 eq("WAITING"), eq(0), eq(1000));
         verifyNoMoreInteractions(bookingService);
     }
+
+    @Test
+    void getBookingByBooker_cursor() throws Exception {
+        when(bookingService.getBookingByBookerAfter(eq(userDto.getId()), eq("ALL"), eq("abc"), eq(1)))
+                .thenReturn(new BookingPage(List.of(bookingDto), "def"));
+
+        mvc.perform(get("/bookings")
+                        .headers(headers)
+                        .param("cursor", "abc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class));
+
+        verify(bookingService, times(1)).getBookingByBookerAfter(eq(userDto.getId()),
+                eq("ALL"), eq("abc"), eq(1));
+        verifyNoMoreInteractions(bookingService);
+    }
+
+    @Test
+    void getBookingByOwner_cursor_last_page() throws Exception {
+        when(bookingService.getBookingByOwnerAfter(eq(userDto.getId()), eq("ALL"), eq(""), eq(20)))
+                .thenReturn(new BookingPage(List.of(bookingDto), null));
+
+        mvc.perform(get("/bookings/owner")
+                        .headers(headers)
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(bookingService, times(1)).getBookingByOwnerAfter(eq(userDto.getId()),
+                eq("ALL"), eq(""), eq(20));
+        verifyNoMoreInteractions(bookingService);
+    }
 }
\ No newline at end of file
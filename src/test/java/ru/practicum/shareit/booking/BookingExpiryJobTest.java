@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.config.PersistenceConfig;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemSearchCache;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.ItemServiceImpl;
+import ru.practicum.shareit.item.ItemViewCache;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.UserServiceImpl;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = { "db.name=test"})
+@SpringJUnitConfig({PersistenceConfig.class, UserServiceImpl.class, ItemServiceImpl.class, BookingServiceImpl.class,
+        BookingIntervalIndex.class, BookingHolds.class,
+        ItemSearchIndex.class, ItemSearchCache.class, ItemViewCache.class})
+class BookingExpiryJobTest {
+
+    private final EntityManager em;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    void sweep_expiresStartedAndStaleWaitingBookingsInChunks() {
+        // given
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        LocalDateTime now = LocalDateTime.now();
+        Booking started = makeBooking(bookerDto, itemDto, now.minusDays(1), BookingStatus.WAITING, now.minusDays(1));
+        Booking stale = makeBooking(bookerDto, itemDto, now.plusDays(2), BookingStatus.WAITING, now.minusDays(4));
+        Booking fresh = makeBooking(bookerDto, itemDto, now.plusDays(4), BookingStatus.WAITING, now);
+        Booking approved = makeBooking(bookerDto, itemDto, now.minusDays(6), BookingStatus.APPROVED, now.minusDays(6));
+        em.flush();
+        BookingExpiryJob job = new BookingExpiryJob(bookingRepository, bookingIntervalIndex, transactionManager, true,
+                72, 1, 100);
+
+        // when
+        int expired = job.sweep();
+
+        // then
+        assertThat(expired, greaterThanOrEqualTo(2));
+        assertThat(em.find(Booking.class, started.getId()).getStatus(), equalTo(BookingStatus.EXPIRED));
+        assertThat(em.find(Booking.class, stale.getId()).getStatus(), equalTo(BookingStatus.EXPIRED));
+        assertThat(em.find(Booking.class, fresh.getId()).getStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(em.find(Booking.class, approved.getId()).getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(bookingService.getBookingByOwner(ownerDto.getId(), "EXPIRED", 0, 10).size(), equalTo(2));
+        assertThat(bookingService.getBookingByOwner(ownerDto.getId(), "WAITING", 0, 10).size(), equalTo(1));
+        assertThat(job.sweep(), equalTo(0));
+    }
+
+    private Booking makeBooking(UserDto bookerDto, ItemDto itemDto, LocalDateTime start, BookingStatus status,
+                                LocalDateTime created) {
+        Booking booking = new Booking();
+        booking.setBooker(em.find(User.class, bookerDto.getId()));
+        booking.setItem(em.find(Item.class, itemDto.getId()));
+        booking.setStartDate(start);
+        booking.setEndDate(start.plusDays(1));
+        booking.setStatus(status);
+        booking.setCreated(created);
+        em.persist(booking);
+        return booking;
+    }
+
+    private UserDto makeUserDto(String name, String email) {
+        UserDto dto = new UserDto();
+        dto.setName(name);
+        dto.setEmail(email);
+        return dto;
+    }
+
+    private ItemDto makeItemDto(String name, String description, Boolean available) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName(name);
+        itemDto.setDescription(description);
+        itemDto.setAvailable(available);
+        return itemDto;
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingHoldsTest {
+
+    private MutableClock clock;
+    private BookingHolds holds;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2030-01-01T00:00:00Z"));
+        holds = new BookingHolds(clock, Duration.ofSeconds(1), 64);
+        base = LocalDateTime.of(2030, 2, 1, 12, 0);
+    }
+
+    @Test
+    void tryHold_rejectsOverlappingHold() {
+        assertTrue(holds.tryHold(1L, 2L, base, base.plusDays(2), Duration.ofMinutes(15)).isPresent());
+
+        assertFalse(holds.tryHold(1L, 3L, base.plusDays(1), base.plusDays(3), Duration.ofMinutes(15)).isPresent());
+        assertTrue(holds.tryHold(1L, 3L, base.plusDays(2), base.plusDays(3), Duration.ofMinutes(15)).isPresent());
+        assertTrue(holds.tryHold(2L, 3L, base, base.plusDays(2), Duration.ofMinutes(15)).isPresent());
+        assertFalse(holds.isFree(1L, base, base.plusDays(1), null));
+    }
+
+    @Test
+    void expireDue_dropsHoldsPastTheirDeadline() {
+        BookingHold shortHold = holds.tryHold(1L, 2L, base, base.plusDays(1), Duration.ofMinutes(5)).orElseThrow();
+        holds.tryHold(1L, 2L, base.plusDays(1), base.plusDays(2), Duration.ofMinutes(30));
+
+        clock.advance(Duration.ofMinutes(4));
+        holds.expireDue();
+        assertEquals(2, holds.size());
+
+        clock.advance(Duration.ofMinutes(2));
+        holds.expireDue();
+        assertEquals(1, holds.size());
+        assertTrue(holds.get(shortHold.getId()).isEmpty());
+        assertTrue(holds.isFree(1L, base, base.plusDays(1), null));
+        assertFalse(holds.isFree(1L, base.plusDays(1), base.plusDays(2), null));
+
+        clock.advance(Duration.ofHours(2));
+        holds.expireDue();
+        assertEquals(0, holds.size());
+    }
+
+    @Test
+    void isFree_ignoresHoldBeingConfirmed() {
+        BookingHold hold = holds.tryHold(1L, 2L, base, base.plusDays(2), Duration.ofMinutes(15)).orElseThrow();
+
+        assertTrue(holds.isFree(1L, base, base.plusDays(2), hold.getId()));
+        assertFalse(holds.isFree(1L, base, base.plusDays(2), hold.getId() + 1));
+    }
+
+    @Test
+    void release_removesHoldOnce() {
+        BookingHold hold = holds.tryHold(1L, 2L, base, base.plusDays(2), Duration.ofMinutes(15)).orElseThrow();
+
+        holds.release(hold);
+        holds.release(hold);
+        clock.advance(Duration.ofMinutes(20));
+        holds.expireDue();
+
+        assertEquals(0, holds.size());
+        assertTrue(holds.isFree(1L, base, base.plusDays(2), null));
+    }
+
+    @Test
+    void claim_succeedsOnceForLiveHoldOfUser() {
+        BookingHold hold = holds.tryHold(1L, 2L, base, base.plusDays(2), Duration.ofMinutes(15)).orElseThrow();
+
+        assertTrue(holds.claim(hold.getId(), 3L).isEmpty());
+        assertTrue(holds.claim(hold.getId(), 2L).isPresent());
+        assertTrue(holds.claim(hold.getId(), 2L).isEmpty());
+        clock.advance(Duration.ofMinutes(20));
+        holds.expireDue();
+
+        assertEquals(1, holds.size());
+        assertFalse(holds.isFree(1L, base, base.plusDays(2), null));
+    }
+
+    @Test
+    void claim_rejectsExpiredHold() {
+        BookingHold hold = holds.tryHold(1L, 2L, base, base.plusDays(2), Duration.ofMinutes(15)).orElseThrow();
+
+        clock.advance(Duration.ofMinutes(15));
+
+        assertTrue(holds.claim(hold.getId(), 2L).isEmpty());
+    }
+
+    @Test
+    void unclaim_letsHoldExpireAgain() {
+        BookingHold hold = holds.tryHold(1L, 2L, base, base.plusDays(2), Duration.ofMinutes(15)).orElseThrow();
+        holds.claim(hold.getId(), 2L).orElseThrow();
+
+        holds.unclaim(hold);
+        assertTrue(holds.claim(hold.getId(), 2L).isPresent());
+        holds.unclaim(hold);
+        clock.advance(Duration.ofMinutes(20));
+        holds.expireDue();
+
+        assertEquals(0, holds.size());
+        assertTrue(holds.isFree(1L, base, base.plusDays(2), null));
+    }
+
+    @Test
+    void release_dropsEmptyItems() {
+        BookingHold first = holds.tryHold(1L, 2L, base, base.plusDays(1), Duration.ofMinutes(15)).orElseThrow();
+        BookingHold second = holds.tryHold(2L, 2L, base, base.plusDays(1), Duration.ofMinutes(15)).orElseThrow();
+
+        holds.release(first);
+        assertEquals(1, holds.itemCount());
+        holds.release(holds.claim(second.getId(), 2L).orElseThrow());
+
+        assertEquals(0, holds.itemCount());
+    }
+
+    @Test
+    void expireDue_handlesManyHolds() {
+        for (int i = 0; i < 60_000; i++) {
+            holds.tryHold(i, 2L, base, base.plusDays(1), Duration.ofSeconds(1 + i % 600));
+        }
+        assertEquals(60_000, holds.size());
+
+        clock.advance(Duration.ofMinutes(5));
+        holds.expireDue();
+        assertEquals(30_000, holds.size());
+
+        clock.advance(Duration.ofMinutes(5));
+        holds.expireDue();
+        assertEquals(0, holds.size());
+        assertEquals(0, holds.itemCount());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingIntervalIndex index;
+
+    private LocalDateTime base;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        base = LocalDateTime.now().plusDays(1).withNano(0);
+        item = new Item();
+        item.setId(1L);
+    }
+
+    @Test
+    void isFree_loadsApprovedBookingsOnce() {
+        when(bookingRepository.getApprovedIntervals(eq(1L), any()))
+                .thenReturn(List.of(new BookingInterval(10L, base, base.plusDays(2))));
+
+        assertFalse(index.isFree(1L, base.plusDays(1), base.plusDays(3)));
+        assertFalse(index.isFree(1L, base.minusDays(1), base.plusHours(1)));
+        assertTrue(index.isFree(1L, base.plusDays(2), base.plusDays(3)));
+        assertTrue(index.isFree(1L, base.minusDays(1), base));
+        verify(bookingRepository, times(1)).getApprovedIntervals(eq(1L), any());
+    }
+
+    @Test
+    void isFree_findsLongIntervalStartingFarBefore() {
+        when(bookingRepository.getApprovedIntervals(eq(1L), any()))
+                .thenReturn(List.of(new BookingInterval(10L, base, base.plusDays(30)),
+                        new BookingInterval(11L, base.plusDays(40), base.plusDays(41))));
+
+        assertFalse(index.isFree(1L, base.plusDays(20), base.plusDays(21)));
+        assertTrue(index.isFree(1L, base.plusDays(31), base.plusDays(39)));
+    }
+
+    @Test
+    void reserve_rejectsOverlapAndAcceptsAfterRelease() {
+        when(bookingRepository.getApprovedIntervals(eq(1L), any())).thenReturn(List.of());
+
+        assertTrue(index.reserve(makeBooking(20L, base, base.plusDays(2))));
+        assertFalse(index.reserve(makeBooking(21L, base.plusDays(1), base.plusDays(3))));
+        assertTrue(index.reserve(makeBooking(22L, base.plusDays(2), base.plusDays(3))));
+
+        index.release(1L, 20L);
+
+        assertTrue(index.reserve(makeBooking(21L, base.plusDays(1), base.plusDays(2))));
+    }
+
+    @Test
+    void getFreeIntervals_returnsGapsBetweenBookings() {
+        when(bookingRepository.getApprovedIntervals(eq(1L), any()))
+                .thenReturn(List.of(new BookingInterval(10L, base.plusDays(1), base.plusDays(2)),
+                        new BookingInterval(11L, base.plusDays(4), base.plusDays(5))));
+        when(bookingRepository.getIntervalsByStatus(eq(1L), eq(BookingStatus.WAITING), any()))
+                .thenReturn(List.of(new BookingInterval(12L, base.plusDays(2), base.plusDays(3))));
+
+        assertEquals(List.of(new FreeInterval(base, base.plusDays(1)),
+                        new FreeInterval(base.plusDays(2), base.plusDays(4)),
+                        new FreeInterval(base.plusDays(5), base.plusDays(6))),
+                index.getFreeIntervals(1L, base, base.plusDays(6), false));
+        assertEquals(List.of(new FreeInterval(base, base.plusDays(1)),
+                        new FreeInterval(base.plusDays(3), base.plusDays(4)),
+                        new FreeInterval(base.plusDays(5), base.plusDays(6))),
+                index.getFreeIntervals(1L, base, base.plusDays(6), true));
+    }
+
+    @Test
+    void removeWaiting_freesCalendar() {
+        when(bookingRepository.getApprovedIntervals(eq(1L), any())).thenReturn(List.of());
+        when(bookingRepository.getIntervalsByStatus(eq(1L), eq(BookingStatus.WAITING), any())).thenReturn(List.of());
+        Booking booking = makeBooking(30L, base.plusDays(1), base.plusDays(2));
+        booking.setStatus(BookingStatus.WAITING);
+
+        index.addWaiting(booking);
+        assertEquals(2, index.getFreeIntervals(1L, base, base.plusDays(3), true).size());
+        assertEquals(1, index.getFreeIntervals(1L, base, base.plusDays(3), false).size());
+
+        index.removeWaiting(booking);
+        assertEquals(1, index.getFreeIntervals(1L, base, base.plusDays(3), true).size());
+    }
+
+    @Test
+    void filterFree_loadsMissingItemsInOneQuery() {
+        when(bookingRepository.getApprovedIntervalsByItems(eq(List.of(1L, 2L, 3L)), any()))
+                .thenReturn(List.of(new ItemBookingInterval(1L, 10L, base.plusHours(1), base.plusDays(2)),
+                        new ItemBookingInterval(3L, 11L, base.plusDays(5), base.plusDays(6))));
+
+        assertEquals(List.of(2L, 3L), index.filterFree(List.of(1L, 2L, 3L), base, base.plusDays(1)));
+        assertEquals(List.of(1L, 2L, 3L), index.filterFree(List.of(1L, 2L, 3L), base.plusDays(2), base.plusDays(5)));
+        assertEquals(List.of(2L), index.filterFree(List.of(1L, 2L, 3L), base, base.plusDays(10)));
+        verify(bookingRepository, times(1)).getApprovedIntervalsByItems(any(), any());
+    }
+
+    @Test
+    void release_keepsDaysSharedWithOtherBookings() {
+        when(bookingRepository.getApprovedIntervals(eq(1L), any())).thenReturn(List.of());
+        LocalDateTime day = base.toLocalDate().plusDays(1).atStartOfDay();
+
+        assertTrue(index.reserve(makeBooking(20L, day.plusHours(8), day.plusHours(12))));
+        assertTrue(index.reserve(makeBooking(21L, day.plusHours(14), day.plusHours(18))));
+        assertTrue(index.isFree(1L, day.plusHours(12), day.plusHours(14)));
+
+        index.release(1L, 20L);
+
+        assertTrue(index.isFree(1L, day.plusHours(8), day.plusHours(12)));
+        assertFalse(index.isFree(1L, day.plusHours(8), day.plusHours(15)));
+        assertTrue(index.isFree(1L, day.plusDays(1), day.plusDays(30)));
+    }
+
+    private Booking makeBooking(long id, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setStatus(BookingStatus.APPROVED);
+        return booking;
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,9 +11,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.item.Comment;
 import ru.practicum.shareit.item.CommentRepository;
 import ru.practicum.shareit.item.Item;
@@ -20,9 +22,14 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest(
         includeFilters = @ComponentScan.Filter(
@@ -32,7 +39,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
         showSql = false,
         properties = {
                 "spring.datasource.url=jdbc:h2:./db/testdb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
-                "spring.jpa.hibernate.ddl-auto=create-drop"
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.properties.hibernate.generate_statistics=true"
         })
 
 class BookingRepositoryTest {
@@ -80,8 +89,9 @@ class BookingRepositoryTest {
         booking = new Booking();
         booking.setBooker(booker);
         booking.setItem(item);
-        booking.setStartDate(LocalDateTime.now().plusSeconds(1));
-        booking.setEndDate(LocalDateTime.now().plusSeconds(2));
+        LocalDateTime start = LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        booking.setStartDate(start);
+        booking.setEndDate(start.plusHours(1));
         booking = bookingRepository.save(booking);
     }
 
@@ -155,11 +165,11 @@ class BookingRepositoryTest {
 
         Pageable pageable = PageRequest.of(0, 1);
 
-        Page<Booking> bookings = bookingRepository.getBookingByOwner(owner, pageable);
+        Slice<BookingView> bookings = bookingRepository.getBookingViewByOwner(owner, pageable);
         assertEquals(1, bookings.getSize());
         assertEquals(booking.getId(), bookings.getContent().get(0).getId());
-        assertEquals(booking.getBooker(), bookings.getContent().get(0).getBooker());
-        assertEquals(booking.getItem(), bookings.getContent().get(0).getItem());
+        assertEquals(booker.getId(), bookings.getContent().get(0).getBookerId());
+        assertEquals(item.getId(), bookings.getContent().get(0).getItemId());
         assertEquals(booking.getStartDate(), bookings.getContent().get(0).getStartDate());
         assertEquals(booking.getEndDate(), bookings.getContent().get(0).getEndDate());
     }
@@ -180,12 +190,193 @@ class BookingRepositoryTest {
 
         Pageable pageable = PageRequest.of(0, 1);
 
-        Page<Booking> bookings = bookingRepository.getBookingByBooker(booker, pageable);
+        Slice<BookingView> bookings = bookingRepository.getBookingViewByBooker(booker, pageable);
         assertEquals(1, bookings.getSize());
         assertEquals(booking.getId(), bookings.getContent().get(0).getId());
-        assertEquals(booking.getBooker(), bookings.getContent().get(0).getBooker());
-        assertEquals(booking.getItem(), bookings.getContent().get(0).getItem());
+        assertEquals(booker.getId(), bookings.getContent().get(0).getBookerId());
+        assertEquals(item.getId(), bookings.getContent().get(0).getItemId());
         assertEquals(booking.getStartDate(), bookings.getContent().get(0).getStartDate());
         assertEquals(booking.getEndDate(), bookings.getContent().get(0).getEndDate());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingLastAndNextByItems() {
+        Item anotherItem = new Item();
+        anotherItem.setOwner(owner);
+        anotherItem.setName("another item name");
+        anotherItem.setDescription("another item description");
+        anotherItem.setAvailable(true);
+        anotherItem = itemRepository.save(anotherItem);
+
+        Booking olderBooking = makeBooking(item, LocalDateTime.now().minusDays(4), LocalDateTime.now().minusDays(3),
+                BookingStatus.APPROVED);
+        Booking lastBooking = makeBooking(item, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                BookingStatus.APPROVED);
+        makeBooking(item, LocalDateTime.now().minusHours(10), LocalDateTime.now().minusHours(9),
+                BookingStatus.REJECTED);
+        Booking anotherLastBooking = makeBooking(anotherItem, LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+        Booking anotherNextBooking = makeBooking(anotherItem, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), BookingStatus.WAITING);
+        makeBooking(anotherItem, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4),
+                BookingStatus.APPROVED);
+
+        List<Booking> last = bookingRepository.getBookingLastByItems(Set.of(item.getId(), anotherItem.getId()));
+        assertEquals(2, last.size());
+        assertTrue(last.contains(lastBooking));
+        assertTrue(last.contains(anotherLastBooking));
+        assertFalse(last.contains(olderBooking));
+
+        List<Booking> next = bookingRepository.getBookingNextAllStatusesByItems(Set.of(item.getId(),
+                anotherItem.getId()));
+        assertEquals(2, next.size());
+        assertTrue(next.contains(booking));
+        assertTrue(next.contains(anotherNextBooking));
+    }
+
+    @Test
+    void getBookingOne_costDoesNotGrowWithHistory() {
+        makeHistory(1);
+        Statistics smallHistory = runTopOneQueries();
+        long smallHistoryStatements = smallHistory.getPrepareStatementCount();
+        long smallHistoryLoads = smallHistory.getEntityLoadCount();
+
+        makeHistory(500);
+        Statistics largeHistory = runTopOneQueries();
+
+        assertEquals(3, smallHistoryStatements);
+        assertEquals(smallHistoryStatements, largeHistory.getPrepareStatementCount());
+        assertEquals(smallHistoryLoads, largeHistory.getEntityLoadCount());
+        assertTrue(largeHistory.getEntityLoadCount() <= 3);
+    }
+
+    @Test
+    void getBookingByBookerAfter_seeksPastTiesInOffsetOrder() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        makeBooking(item, start, start.plusHours(1), BookingStatus.WAITING);
+        makeBooking(item, start, start.plusHours(1), BookingStatus.WAITING);
+        makeBooking(item, start.plusDays(1), start.plusDays(1).plusHours(1), BookingStatus.WAITING);
+        em.flush();
+        em.clear();
+
+        List<BookingView> all = bookingRepository.getBookingViewByBooker(booker, PageRequest.of(0, 10)).getContent();
+        assertEquals(4, all.size());
+
+        LocalDateTime cursorStart = all.get(0).getStartDate();
+        long cursorId = all.get(0).getId();
+        for (int i = 1; i < all.size(); i++) {
+            List<BookingView> next = bookingRepository.getBookingByBookerAfter(booker, cursorStart, cursorId,
+                    PageRequest.of(0, 1));
+            assertEquals(1, next.size());
+            assertEquals(all.get(i).getId(), next.get(0).getId());
+            cursorStart = next.get(0).getStartDate();
+            cursorId = next.get(0).getId();
+        }
+        assertTrue(bookingRepository.getBookingByBookerAfter(booker, cursorStart, cursorId,
+                PageRequest.of(0, 1)).isEmpty());
+        assertEquals(2, bookingRepository.getBookingByOwnerAfter(owner, all.get(1).getStartDate(),
+                all.get(1).getId(), PageRequest.of(0, 10)).size());
+    }
+
+    @Test
+    void getBookingViewByBooker_skipsCountQuery() {
+        makeHistory(3);
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        Slice<BookingView> bookings = bookingRepository.getBookingViewByBooker(booker, PageRequest.of(0, 2));
+
+        assertEquals(2, bookings.getNumberOfElements());
+        assertTrue(bookings.hasNext());
+        assertEquals(1, statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    void getBookingViewByOwner_readsPageInOneStatement() {
+        booking.setStatus(BookingStatus.WAITING);
+        makeHistory(2);
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        List<BookingView> bookings = bookingRepository.getBookingViewByOwner(owner, PageRequest.of(0, 10))
+                .getContent();
+
+        assertEquals(5, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        BookingView view = bookings.get(0);
+        assertEquals(item.getId(), view.getItemId());
+        assertEquals(owner.getId(), view.getItemOwnerId());
+        assertEquals(item.getName(), view.getItemName());
+        assertEquals(booker.getId(), view.getBookerId());
+        assertEquals(booker.getEmail(), view.getBookerEmail());
+    }
+
+    @Test
+    void givenBooking_whenSaved_thenCopiesItemOwner() {
+        assertEquals(owner, booking.getOwner());
+    }
+
+    @Test
+    void updateStatus_expiresStartedAndStaleWaitingBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking started = makeBooking(item, now.minusDays(1), now.plusDays(1), BookingStatus.WAITING);
+        Booking fresh = makeBooking(item, now.plusDays(2), now.plusDays(3), BookingStatus.WAITING);
+        makeBooking(item, now.minusDays(1), now.plusDays(1), BookingStatus.APPROVED);
+        Booking stale = new Booking();
+        stale.setBooker(booker);
+        stale.setItem(item);
+        stale.setStartDate(now.plusDays(4));
+        stale.setEndDate(now.plusDays(5));
+        stale.setStatus(BookingStatus.WAITING);
+        stale.setCreated(now.minusDays(5));
+        stale = bookingRepository.save(stale);
+        em.flush();
+
+        List<Long> ids = bookingRepository.getBookingIdsByStatusStartedOrCreatedBefore(BookingStatus.WAITING, now,
+                now.minusDays(3), PageRequest.of(0, 10));
+
+        assertEquals(List.of(started.getId(), stale.getId()), ids);
+        assertEquals(2, bookingRepository.updateStatus(ids, BookingStatus.WAITING, BookingStatus.EXPIRED));
+        assertEquals(0, bookingRepository.updateStatus(ids, BookingStatus.WAITING, BookingStatus.EXPIRED));
+        assertEquals(BookingStatus.EXPIRED, bookingRepository.findById(started.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(fresh.getId()).orElseThrow().getStatus());
+    }
+
+    private Booking makeBooking(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking newBooking = new Booking();
+        newBooking.setBooker(booker);
+        newBooking.setItem(item);
+        newBooking.setStartDate(start);
+        newBooking.setEndDate(end);
+        newBooking.setStatus(status);
+        return bookingRepository.save(newBooking);
+    }
+
+    private void makeHistory(int count) {
+        for (int i = 1; i <= count; i++) {
+            makeBooking(item, LocalDateTime.now().minusDays(2L * i + 1), LocalDateTime.now().minusDays(2L * i),
+                    BookingStatus.APPROVED);
+            makeBooking(item, LocalDateTime.now().plusDays(2L * i), LocalDateTime.now().plusDays(2L * i + 1),
+                    BookingStatus.APPROVED);
+        }
+    }
+
+    private Statistics runTopOneQueries() {
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        assertTrue(bookingRepository.getBookingOnePast(item).isPresent());
+        assertTrue(bookingRepository.getBookingOneFutureApproved(item).isPresent());
+        assertTrue(bookingRepository.getBookingOneFutureAllStatuses(item).isPresent());
+        return statistics;
+    }
+}
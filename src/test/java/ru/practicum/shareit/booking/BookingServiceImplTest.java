@@ -19,6 +19,8 @@ import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -29,13 +31,16 @@ import static org.hamcrest.Matchers.equalTo;
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @TestPropertySource(properties = { "db.name=test"})
-@SpringJUnitConfig({PersistenceConfig.class, UserServiceImpl.class, ItemServiceImpl.class, BookingServiceImpl.class})
+@SpringJUnitConfig({PersistenceConfig.class, UserServiceImpl.class, ItemServiceImpl.class, BookingServiceImpl.class,
+        BookingIntervalIndex.class, BookingHolds.class,
+        ItemSearchIndex.class, ItemSearchCache.class, ItemViewCache.class})
 class BookingServiceImplTest {
 
     private final EntityManager em;
     private final UserService userService;
     private final ItemService itemService;
     private final BookingService bookingService;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Test
     void addBooking() throws InterruptedException {
@@ -116,6 +121,103 @@ class BookingServiceImplTest {
                 .hasMessageContaining("User not found.");
     }
 
+    @Test
+    void addBookings_reports_errors_per_element() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto wrongDates = makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(1));
+        BookingDto unknownItem = makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        unknownItem.setItemId(itemDto.getId() + 1000);
+        BookingDto unknownStatus = makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(5),
+                LocalDateTime.now().plusDays(6));
+        unknownStatus.setStatus("PAID");
+        List<BookingDto> bookingDto = Arrays.asList(
+                makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)),
+                wrongDates,
+                unknownItem,
+                makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4)),
+                unknownStatus,
+                null);
+
+        List<BookingBatchResult> results = bookingService.addBookings(bookerDto.getId(), bookingDto);
+
+        assertThat(results.size(), equalTo(6));
+        assertThat(results.get(0).getBooking().getId(), notNullValue());
+        assertThat(results.get(0).getError(), equalTo(null));
+        assertThat(results.get(1).getError(), equalTo("Wrong dates."));
+        assertThat(results.get(2).getError(), equalTo("Item not found."));
+        assertThat(results.get(3).getBooking().getStatus(), equalTo("WAITING"));
+        assertThat(results.get(4).getError(), equalTo("Unknown status: PAID"));
+        assertThat(results.get(5).getError(), equalTo("Booking is missing."));
+
+        TypedQuery<Booking> query = em.createQuery("Select b from Booking b where b.booker.id = :id", Booking.class);
+        assertThat(query.setParameter("id", bookerDto.getId()).getResultList().size(), equalTo(2));
+    }
+
+    @Test
+    void addBookings_400_too_many() {
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        List<BookingDto> bookingDto = Collections.nCopies(BookingServiceImpl.MAX_BATCH_SIZE + 1, new BookingDto());
+
+        assertThatThrownBy(() -> bookingService.addBookings(bookerDto.getId(), bookingDto))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Too many bookings in a batch");
+    }
+
+    @Test
+    void holdBooking_400_item_on_hold() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        UserDto otherDto = userService.addUser(makeUserDto("Oleg", "oleg@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto bookingDto = makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+
+        BookingHoldDto holdDto = bookingService.holdBooking(bookerDto.getId(), bookingDto, 15);
+
+        assertThat(holdDto.getId(), notNullValue());
+        assertThat(holdDto.getStart(), equalTo(bookingDto.getStart()));
+        assertThatThrownBy(() -> bookingService.addBooking(otherDto.getId(), bookingDto))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Item is on hold for these dates.");
+        assertThatThrownBy(() -> bookingService.holdBooking(otherDto.getId(), bookingDto, 15))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Item is on hold for these dates.");
+    }
+
+    @Test
+    void confirmHold() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto bookingDto = makeBookingDto(bookerDto, itemDto, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingHoldDto holdDto = bookingService.holdBooking(bookerDto.getId(), bookingDto, 15);
+
+        assertThatThrownBy(() -> bookingService.confirmHold(ownerDto.getId(), holdDto.getId()))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Hold not found.");
+        BookingDto confirmed = bookingService.confirmHold(bookerDto.getId(), holdDto.getId());
+
+        assertThat(confirmed.getId(), notNullValue());
+        assertThat(confirmed.getStart(), equalTo(bookingDto.getStart()));
+        assertThat(confirmed.getEnd(), equalTo(bookingDto.getEnd()));
+        assertThat(confirmed.getStatus(), equalTo(BookingStatus.WAITING.toString()));
+    }
+
+    @Test
+    void holdBooking_400_non_positive_minutes() {
+        assertThatThrownBy(() -> bookingService.holdBooking(1L, new BookingDto(), 0))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Non-positive hold minutes: 0");
+    }
+
     @Test
     void approveBooking_approved() throws InterruptedException {
         // given & when
@@ -184,6 +286,149 @@ class BookingServiceImplTest {
         assertThat(booking.getStatus(), equalTo(BookingStatus.REJECTED));
     }
 
+    @Test
+    void addBooking_400_item_already_booked() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto firstBookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        UserDto secondBookerDto = userService.addUser(makeUserDto("Alexander", "alexander@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto firstBookingDto = bookingService.addBooking(firstBookerDto.getId(),
+                makeBookingDto(firstBookerDto, itemDto, LocalDateTime.now().plusDays(1),
+                        LocalDateTime.now().plusDays(3)));
+        bookingService.approveBooking(ownerDto.getId(), firstBookingDto.getId(), true);
+        BookingDto secondBookingDto = makeBookingDto(secondBookerDto, itemDto, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(4));
+
+        assertThatThrownBy(() -> bookingService.addBooking(secondBookerDto.getId(), secondBookingDto))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Item is already booked for these dates.");
+    }
+
+    @Test
+    void approveBooking_400_item_already_booked() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto firstBookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        UserDto secondBookerDto = userService.addUser(makeUserDto("Alexander", "alexander@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto firstBookingDto = bookingService.addBooking(firstBookerDto.getId(),
+                makeBookingDto(firstBookerDto, itemDto, LocalDateTime.now().plusDays(1),
+                        LocalDateTime.now().plusDays(3)));
+        BookingDto secondBookingDto = bookingService.addBooking(secondBookerDto.getId(),
+                makeBookingDto(secondBookerDto, itemDto, LocalDateTime.now().plusDays(2),
+                        LocalDateTime.now().plusDays(4)));
+        bookingService.approveBooking(ownerDto.getId(), firstBookingDto.getId(), true);
+
+        assertThatThrownBy(() -> bookingService.approveBooking(ownerDto.getId(), secondBookingDto.getId(), true))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Item is already booked for these dates.");
+    }
+
+    @Test
+    void approveBooking_cold_index() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto bookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        bookingIntervalIndex.evict(itemDto.getId());
+
+        BookingDto approvedDto = bookingService.approveBooking(ownerDto.getId(), bookingDto.getId(), true);
+
+        assertThat(approvedDto.getStatus(), equalTo(BookingStatus.APPROVED.toString()));
+        assertThat(bookingIntervalIndex.isFree(itemDto.getId(), LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2)), equalTo(false));
+    }
+
+    @Test
+    void approveBooking_400_not_waiting() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto rejectedDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        bookingService.approveBooking(ownerDto.getId(), rejectedDto.getId(), false);
+        BookingDto expiredDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4)));
+        em.find(Booking.class, expiredDto.getId()).setStatus(BookingStatus.EXPIRED);
+        em.flush();
+
+        assertThatThrownBy(() -> bookingService.approveBooking(ownerDto.getId(), rejectedDto.getId(), true))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Booking is already rejected.");
+        assertThatThrownBy(() -> bookingService.approveBookings(ownerDto.getId(),
+                List.of(new BookingDecision(expiredDto.getId(), true))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Booking is already expired.");
+        assertThat(em.find(Booking.class, expiredDto.getId()).getStatus(), equalTo(BookingStatus.EXPIRED));
+    }
+
+    @Test
+    void approveBookings_approves_and_rejects() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto firstItemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        ItemDto secondItemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("TV", "Large color TV", true));
+        BookingDto firstBookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto,
+                firstItemDto, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        BookingDto secondBookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto,
+                secondItemDto, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+
+        List<BookingDto> bookingDto = bookingService.approveBookings(ownerDto.getId(), List.of(
+                new BookingDecision(firstBookingDto.getId(), true),
+                new BookingDecision(secondBookingDto.getId(), false)));
+
+        assertThat(bookingDto.size(), equalTo(2));
+        assertThat(bookingDto.get(0).getId(), equalTo(firstBookingDto.getId()));
+        assertThat(bookingDto.get(0).getStatus(), equalTo("APPROVED"));
+        assertThat(bookingDto.get(1).getId(), equalTo(secondBookingDto.getId()));
+        assertThat(bookingDto.get(1).getStatus(), equalTo("REJECTED"));
+        assertThat(em.find(Booking.class, firstBookingDto.getId()).getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(em.find(Booking.class, secondBookingDto.getId()).getStatus(), equalTo(BookingStatus.REJECTED));
+    }
+
+    @Test
+    void approveBookings_one_sided_in_request_order() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto firstBookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto,
+                itemDto, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        BookingDto secondBookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto,
+                itemDto, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4)));
+
+        List<BookingDto> bookingDto = bookingService.approveBookings(ownerDto.getId(), List.of(
+                new BookingDecision(secondBookingDto.getId(), false),
+                new BookingDecision(firstBookingDto.getId(), false)));
+
+        assertThat(bookingDto.size(), equalTo(2));
+        assertThat(bookingDto.get(0).getId(), equalTo(secondBookingDto.getId()));
+        assertThat(bookingDto.get(1).getId(), equalTo(firstBookingDto.getId()));
+        assertThat(bookingDto.get(0).getStatus(), equalTo("REJECTED"));
+        assertThat(bookingDto.get(1).getStatus(), equalTo("REJECTED"));
+    }
+
+    @Test
+    void approveBookings_404_another_owner() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto bookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+
+        assertThatThrownBy(() -> bookingService.approveBookings(bookerDto.getId(),
+                List.of(new BookingDecision(bookingDto.getId(), true))))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("This item has another owner.");
+    }
+
     @Test
     void approveBooking_404_user_not_found() {
         assertThatThrownBy(() -> bookingService.approveBooking(1L, 1L, true))
@@ -582,6 +827,41 @@ class BookingServiceImplTest {
                 .hasMessageContaining("User not found.");
     }
 
+    @Test
+    void getBookingByBookerAfter_follows_cursor() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Alexander", "alexander@ya.ru"));
+        ItemDto itemDto = itemService.addItem(ownerDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true));
+        BookingDto earlier = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        BookingDto later = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4)));
+
+        BookingPage firstPage = bookingService.getBookingByBookerAfter(bookerDto.getId(), "FUTURE", "", 1);
+        assertThat(firstPage.getBookings().size(), equalTo(1));
+        assertThat(firstPage.getBookings().get(0).getId(), equalTo(later.getId()));
+        assertThat(firstPage.getNextCursor(), notNullValue());
+
+        BookingPage secondPage = bookingService.getBookingByBookerAfter(bookerDto.getId(), "FUTURE",
+                firstPage.getNextCursor(), 1);
+        assertThat(secondPage.getBookings().size(), equalTo(1));
+        assertThat(secondPage.getBookings().get(0).getId(), equalTo(earlier.getId()));
+
+        BookingPage lastPage = bookingService.getBookingByBookerAfter(bookerDto.getId(), "FUTURE",
+                secondPage.getNextCursor(), 1);
+        assertThat(lastPage.getBookings().size(), equalTo(0));
+        assertThat(lastPage.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    void getBookingByOwnerAfter_400_invalid_cursor() {
+        UserDto ownerDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        assertThatThrownBy(() -> bookingService.getBookingByOwnerAfter(ownerDto.getId(), "ALL", "not a cursor", 1))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid cursor.");
+    }
+
     private UserDto makeUserDto(String name, String email) {
         UserDto dto = new UserDto();
         dto.setName(name);
@@ -0,0 +1,203 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.config.PersistenceConfig;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemSearchCache;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.ItemServiceImpl;
+import ru.practicum.shareit.item.ItemViewCache;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.UserServiceImpl;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = { "db.name=test"})
+@SpringJUnitConfig({PersistenceConfig.class, UserServiceImpl.class, ItemServiceImpl.class, BookingServiceImpl.class,
+        BookingIntervalIndex.class, BookingHolds.class,
+        ItemSearchIndex.class, ItemSearchCache.class, ItemViewCache.class})
+class BookingWriteQueueTest {
+
+    private final DataSource dataSource;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private BookingWriteQueue bookingWriteQueue;
+    private UserDto ownerDto;
+    private UserDto bookerDto;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        bookingWriteQueue = new BookingWriteQueue(bookingService, true, 10, 2, 10_000);
+        ownerDto = addUser("Alexey");
+        bookerDto = addUser("Ilya");
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Microwave oven");
+        itemDto.setDescription("Power compact microwave oven");
+        itemDto.setAvailable(true);
+        itemId = itemService.addItem(ownerDto.getId(), itemDto).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        bookingWriteQueue.shutdown();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM bookings WHERE item_id = ?", itemId);
+        jdbcTemplate.update("DELETE FROM items WHERE id = ?", itemId);
+        userIds.forEach(userId -> jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId));
+    }
+
+    @Test
+    void addBooking_concurrent_callers_get_own_results() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<BookingDto> bookingDtos = new ArrayList<>();
+        List<Future<BookingDto>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            BookingDto bookingDto = makeBookingDto(1 + i % 5);
+            bookingDtos.add(bookingDto);
+            futures.add(executor.submit(() -> bookingWriteQueue.addBooking(bookerDto.getId(), bookingDto)));
+        }
+
+        // then
+        for (int i = 0; i < futures.size(); i++) {
+            BookingDto result = futures.get(i).get();
+            assertThat(result.getId(), notNullValue());
+            assertThat(result.getStart(), equalTo(bookingDtos.get(i).getStart()));
+            assertThat(result.getStatus(), equalTo(BookingStatus.WAITING.toString()));
+        }
+        executor.shutdown();
+        assertThat(bookingService.getBookingByBooker(bookerDto.getId(), "ALL", 0, 100).size(), equalTo(50));
+    }
+
+    @Test
+    void addBooking_rethrows_element_errors() {
+        BookingDto wrongDates = makeBookingDto(1);
+        wrongDates.setEnd(wrongDates.getStart());
+
+        assertThatThrownBy(() -> bookingWriteQueue.addBooking(bookerDto.getId(), wrongDates))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Wrong dates.");
+        assertThatThrownBy(() -> bookingWriteQueue.addBooking(ownerDto.getId(), makeBookingDto(1)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Item owner and booker are equal.");
+        assertThat(bookingWriteQueue.addBooking(bookerDto.getId(), makeBookingDto(1)).getId(), notNullValue());
+    }
+
+    @Test
+    void addBooking_404_item_not_found() {
+        BookingDto bookingDto = makeBookingDto(1);
+        bookingDto.setItemId(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> bookingWriteQueue.addBooking(bookerDto.getId(), bookingDto))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Item not found.");
+    }
+
+    @Test
+    void addBooking_drops_drained_item_queues() throws InterruptedException {
+        assertThat(bookingWriteQueue.addBooking(bookerDto.getId(), makeBookingDto(1)).getId(), notNullValue());
+
+        // the worker removes the queue right after completing the batch
+        for (int i = 0; i < 100 && bookingWriteQueue.queuedItems() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(bookingWriteQueue.queuedItems(), equalTo(0));
+    }
+
+    @Test
+    void addBooking_fails_after_shutdown() {
+        bookingWriteQueue.shutdown();
+
+        assertThatThrownBy(() -> bookingWriteQueue.addBooking(bookerDto.getId(), makeBookingDto(1)))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(bookingService.getBookingByBooker(bookerDto.getId(), "ALL", 0, 100).size(), equalTo(0));
+    }
+
+    @Test
+    void addBooking_timeout_drops_only_queued_bookings() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BookingService slowService = mock(BookingService.class);
+        doAnswer(invocation -> {
+            release.await();
+            List<BookingCommand> commands = invocation.getArgument(1);
+            commands.forEach(command -> command.setResult(command.getBooking()));
+            return null;
+        }).when(slowService).addItemBookings(anyLong(), anyList());
+        BookingWriteQueue slowQueue = new BookingWriteQueue(slowService, true, 10, 1, 100);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            BookingDto takenDto = makeBookingDto(1);
+            Future<BookingDto> taken = executor.submit(() -> slowQueue.addBooking(bookerDto.getId(), takenDto));
+            verify(slowService, timeout(1000)).addItemBookings(anyLong(), anyList());
+
+            assertThatThrownBy(() -> slowQueue.addBooking(bookerDto.getId(), makeBookingDto(3)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Booking write queue timed out.");
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThat(taken.get(), equalTo(takenDto));
+            Thread.sleep(200);
+            verify(slowService, times(1)).addItemBookings(anyLong(), anyList());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            slowQueue.shutdown();
+        }
+    }
+
+    private UserDto addUser(String name) {
+        UserDto userDto = userService.addUser(new UserDto(null, name, UUID.randomUUID() + "@ya.ru"));
+        userIds.add(userDto.getId());
+        return userDto;
+    }
+
+    private BookingDto makeBookingDto(int days) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setItemId(itemId);
+        bookingDto.setStart(LocalDateTime.now().plusDays(days).format(formatter));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(days + 1).format(formatter));
+        return bookingDto;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:data-source-pool;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.leak-detection-threshold=5000",
+        "spring.datasource.hikari.data-source-properties.QUERY_CACHE_SIZE=32"})
+@SpringJUnitConfig({PersistenceConfig.class})
+class DataSourcePoolTest {
+    private static final int THREADS = 8;
+    private static final int QUERIES_PER_THREAD = 5000;
+
+    private final DataSource dataSource;
+
+    @Test
+    void dataSource_pooledWithConfiguredSettings() {
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        assertThat(hikari.getMaximumPoolSize(), equalTo(4));
+        assertThat(hikari.getLeakDetectionThreshold(), equalTo(5000L));
+        assertThat(jdbcTemplate.queryForObject("SELECT setting_value FROM information_schema.settings " +
+                "WHERE setting_name = 'QUERY_CACHE_SIZE'", String.class), equalTo("32"));
+        assertThat(hikari.getHikariPoolMXBean().getActiveConnections(), equalTo(0));
+    }
+
+    /**
+     * Compares the pool with a connection opened per query. Run with -Dshareit.benchmark=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+    void load_pooledComparedWithUnpooled() throws Exception {
+        HikariDataSource hikari = (HikariDataSource) dataSource;
+        DriverManagerDataSource unpooled = new DriverManagerDataSource(hikari.getJdbcUrl(), hikari.getUsername(),
+                hikari.getPassword());
+        measure("unpooled", unpooled);
+        measure("pooled", dataSource);
+
+        double unpooledRate = measure("unpooled", unpooled);
+        double pooledRate = measure("pooled", dataSource);
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        log.info("pool: {} active, {} idle, {} waiting", pool.getActiveConnections(),
+                pool.getIdleConnections(), pool.getThreadsAwaitingConnection());
+
+        assertThat(pooledRate, greaterThan(unpooledRate));
+    }
+
+    private double measure(String name, DataSource source) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(source);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long started = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < QUERIES_PER_THREAD; j++) {
+                        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Long.class, j);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double rate = THREADS * QUERIES_PER_THREAD / ((System.nanoTime() - started) / 1e9);
+            log.info("{}, {} threads: {} queries/s", name, THREADS, Math.round(rate));
+            return rate;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
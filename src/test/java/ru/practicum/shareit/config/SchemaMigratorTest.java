@@ -0,0 +1,156 @@
+package ru.practicum.shareit.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.RequestRepository;
+import ru.practicum.shareit.user.User;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = { "db.name=test",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "ru.practicum.shareit.config.SchemaMigratorTest$RecordingStatementInspector"})
+@SpringJUnitConfig({PersistenceConfig.class})
+class SchemaMigratorTest {
+
+    private final DataSource dataSource;
+    private final SchemaMigrator schemaMigrator;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final RequestRepository requestRepository;
+
+    @Test
+    void migrate_recordsLatestVersion() throws IOException {
+        assertThat(schemaMigrator.getCurrentVersion(), equalTo(countMigrations()));
+    }
+
+    @Test
+    void migrate_isIdempotent() throws IOException {
+        schemaMigrator.migrate();
+
+        Integer applied = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM schema_version",
+                Integer.class);
+        assertThat(applied, equalTo(countMigrations()));
+    }
+
+    @Test
+    void migrate_createsForeignKeyIndexes() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String index : List.of("ix_bookings_item_start", "ix_bookings_booker_start", "ix_bookings_owner_start",
+                "ix_bookings_status_start", "ix_items_owner", "ix_comments_item", "ix_requests_requestor")) {
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.indexes " +
+                    "WHERE LOWER(index_name) = ?", Integer.class, index);
+            assertThat(index, count, equalTo(1));
+        }
+    }
+
+    @Test
+    void bookingsSequence_startsPastExistingIds() {
+        DataSource fresh = new DriverManagerDataSource(
+                "jdbc:h2:mem:bookings-sequence;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(fresh);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__create_tables.sql"),
+                new ClassPathResource("db/migration/V3__add_bookings_owner.sql")).execute(fresh);
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (1, 'Alexey', 'alexey@ya.ru')");
+        jdbcTemplate.update("INSERT INTO items (id, name, description, is_available, owner_id) " +
+                "VALUES (1, 'Oven', 'Oven', true, 1)");
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, status, item_id, booker_id, owner_id) " +
+                "VALUES (1234, ?, ?, 'WAITING', 1, 1, 1)", LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__add_bookings_sequence.sql"))
+                .execute(fresh);
+
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('bookings_seq')", Long.class);
+        assertThat(next - 49, greaterThan(1234L));
+    }
+
+    @Test
+    void hotQueries_useIndexes() {
+        User user = new User();
+        user.setId(1L);
+        Item item = new Item();
+        item.setId(1L);
+        LocalDateTime now = LocalDateTime.now();
+        List<Runnable> hotQueries = List.of(
+                () -> bookingRepository.getBookingViewByBooker(user, PageRequest.of(0, 20)),
+                () -> bookingRepository.getBookingViewByOwner(user, PageRequest.of(0, 20)),
+                () -> bookingRepository.getBookingByBookerAfter(user, now, 1L, PageRequest.of(0, 20)),
+                () -> bookingRepository.getBookingByOwnerAfter(user, now, 1L, PageRequest.of(0, 20)),
+                () -> bookingRepository.getBookingOneFutureAllStatuses(item),
+                () -> bookingRepository.getBookingOnePast(item),
+                () -> bookingRepository.getBookingIdsByStatusStartedOrCreatedBefore(BookingStatus.WAITING, now, now,
+                        PageRequest.of(0, 500)),
+                () -> itemRepository.getItemsByOwner(1L, PageRequest.of(0, 20)),
+                () -> commentRepository.getCommentsForItem(1L),
+                () -> requestRepository.getRequestsByOwner(1L));
+
+        for (Runnable hotQuery : hotQueries) {
+            RecordingStatementInspector.STATEMENTS.clear();
+            hotQuery.run();
+            assertThat(RecordingStatementInspector.STATEMENTS, not(empty()));
+            for (String statement : RecordingStatementInspector.STATEMENTS) {
+                String plan = explain(statement);
+                assertThat(statement, plan, not(containsString("tableScan")));
+            }
+        }
+    }
+
+    /**
+     * Plans the statement as Hibernate sent it, with every parameter left null.
+     */
+    private String explain(String statement) {
+        return new JdbcTemplate(dataSource).execute("EXPLAIN " + statement, (PreparedStatement explain) -> {
+            for (int i = 1; i <= explain.getParameterMetaData().getParameterCount(); i++) {
+                explain.setObject(i, null);
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+
+    private int countMigrations() throws IOException {
+        return new PathMatchingResourcePatternResolver().getResources(SchemaMigrator.LOCATION).length;
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
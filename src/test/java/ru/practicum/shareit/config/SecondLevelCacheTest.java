@@ -0,0 +1,113 @@
+package ru.practicum.shareit.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.request.RequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = { "db.name=test"})
+@SpringJUnitConfig({PersistenceConfig.class})
+class SecondLevelCacheTest {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final RequestRepository requestRepository;
+
+    private User user;
+    private Request request;
+    private Item item;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Alexey");
+        user.setEmail("alexey.cache@ya.ru");
+        user = userRepository.save(user);
+        request = new Request();
+        request.setRequestor(user);
+        request.setDescription("oven");
+        request = requestRepository.save(request);
+        item = new Item();
+        item.setOwner(user);
+        item.setRequest(request);
+        item.setName("Microwave oven");
+        item.setDescription("Power compact microwave oven");
+        item.setAvailable(true);
+        item = itemRepository.save(item);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        statistics.setStatisticsEnabled(false);
+        itemRepository.deleteById(item.getId());
+        requestRepository.deleteById(request.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void findById_servedFromSecondLevelCache() {
+        findAll();
+        statistics.clear();
+
+        findAll();
+        findAll();
+
+        assertThat(statistics.getSecondLevelCacheHitCount(), equalTo(6L));
+        assertThat(statistics.getSecondLevelCacheMissCount(), equalTo(0L));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(0L));
+    }
+
+    @Test
+    void save_replacesCachedEntity() {
+        userRepository.findById(user.getId());
+        user.setName("Ilya");
+        userRepository.save(user);
+        statistics.clear();
+
+        User cached = userRepository.findById(user.getId()).orElseThrow();
+
+        assertThat(cached.getName(), equalTo("Ilya"));
+        assertThat(statistics.getSecondLevelCacheHitCount(), equalTo(1L));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(0L));
+    }
+
+    @Test
+    void closingAnotherContext_keepsCachesOpen() {
+        new AnnotationConfigApplicationContext(PersistenceConfig.class).close();
+        findAll();
+        statistics.clear();
+
+        findAll();
+
+        assertThat(statistics.getSecondLevelCacheHitCount(), equalTo(3L));
+        assertThat(statistics.getPrepareStatementCount(), equalTo(0L));
+    }
+
+    private void findAll() {
+        userRepository.findById(user.getId()).orElseThrow();
+        requestRepository.findById(request.getId()).orElseThrow();
+        itemRepository.findById(item.getId()).orElseThrow();
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.BookingShotDto;
+import ru.practicum.shareit.booking.FreeIntervalDto;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.error.ErrorHandler;
 
@@ -205,9 +206,30 @@ class ItemControllerTest {
         verifyNoMoreInteractions(itemService);
     }
 
+    @Test
+    void getAvailability() throws Exception {
+        FreeIntervalDto freeInterval = new FreeIntervalDto("2030-01-01T00:00:00", "2030-01-05T00:00:00");
+        when(itemService.getAvailability(eq(1L), eq("2030-01-01T00:00:00"), eq("2030-02-01T00:00:00"), eq(true)))
+                .thenReturn(List.of(freeInterval));
+
+        mvc.perform(get("/items/1/availability")
+                        .headers(headers)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-02-01T00:00:00")
+                        .param("includeWaiting", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].start", is(freeInterval.getStart())))
+                .andExpect(jsonPath("$[0].end", is(freeInterval.getEnd())));
+
+        verify(itemService, times(1)).getAvailability(eq(1L), eq("2030-01-01T00:00:00"),
+                eq("2030-02-01T00:00:00"), eq(true));
+        verifyNoMoreInteractions(itemService);
+    }
+
     @Test
     void search() throws Exception {
-        when(itemService.search(eq("oven"), eq(0), eq(1000)))
+        when(itemService.search(eq("oven"), isNull(), isNull(), eq(0), eq(1000)))
                 .thenReturn(List.of(itemDto));
 
         mvc.perform(get("/items/search")
@@ -228,7 +250,43 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].nextBooking.bookerId",
                         is(itemDto.getNextBooking().getBookerId()), Long.class));
 
-        verify(itemService, times(1)).search(eq("oven"), eq(0), eq(1000));
+        verify(itemService, times(1)).search(eq("oven"), isNull(), isNull(), eq(0), eq(1000));
+        verifyNoMoreInteractions(itemService);
+    }
+
+    @Test
+    void search_free_dates() throws Exception {
+        when(itemService.search(eq("oven"), eq("2030-01-01T00:00:00"), eq("2030-01-05T00:00:00"), eq(0), eq(20)))
+                .thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/search")
+                        .headers(headers)
+                        .param("text", "oven")
+                        .param("start", "2030-01-01T00:00:00")
+                        .param("end", "2030-01-05T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(itemDto.getId()), Long.class));
+
+        verify(itemService, times(1)).search(eq("oven"), eq("2030-01-01T00:00:00"), eq("2030-01-05T00:00:00"),
+                eq(0), eq(20));
+        verifyNoMoreInteractions(itemService);
+    }
+
+    @Test
+    void suggest() throws Exception {
+        when(itemService.suggest(eq("dri"), eq(5)))
+                .thenReturn(List.of("Drill", "Drill press"));
+
+        mvc.perform(get("/items/suggest")
+                        .param("prefix", "dri")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is("Drill")))
+                .andExpect(jsonPath("$[1]", is("Drill press")));
+
+        verify(itemService, times(1)).suggest(eq("dri"), eq(5));
         verifyNoMoreInteractions(itemService);
     }
 
@@ -9,9 +9,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
@@ -114,7 +114,7 @@ class ItemRepositoryTest {
 
         Pageable pageable = PageRequest.of(0, 1);
 
-        Page<Item> items = itemRepository.getItemsByOwner(testUser.getId(), pageable);
+        Slice<Item> items = itemRepository.getItemsByOwner(testUser.getId(), pageable);
         assertEquals(1, items.getSize());
         assertEquals(testItem.getId(), items.getContent().get(0).getId());
         assertEquals(testItem.getOwner(), items.getContent().get(0).getOwner());
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.config.PersistenceConfig;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Compares the trigram index with the LIKE query it replaced. Run with -Dshareit.benchmark=true; the item counts
+ * can be changed with -Dshareit.benchmark.sizes=100000,1000000.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:item-search-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"})
+@SpringJUnitConfig({PersistenceConfig.class, ItemSearchIndex.class})
+class ItemSearchBenchmarkTest {
+    private static final int PAGE_SIZE = 20;
+    private static final int INSERT_CHUNK_SIZE = 10_000;
+    private static final String[] WORDS = {"перфоратор-дрель", "дрель", "шуруповёрт", "болгарка", "пила", "лобзик",
+        "power", "cordless", "drill", "saw", "hammer", "compact", "electric", "oven", "microwave", "tent", "ladder",
+        "bike", "kayak", "projector", "speaker", "camera", "tripod", "lens", "heavy", "light", "set", "kit"};
+    private static final String[] QUERIES = {"дрель", "rdles", "microwave oven", "tripod", "drill-kit", "xyz"};
+
+    private final DataSource dataSource;
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndex itemSearchIndex;
+
+    @Test
+    void search_comparedWithRepositoryQuery() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Benchmark', 'benchmark@ya.ru')");
+        long ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'benchmark@ya.ru'", Long.class);
+        Random random = new Random(42);
+        int inserted = 0;
+        for (String size : System.getProperty("shareit.benchmark.sizes", "100000,1000000").split(",")) {
+            int count = Integer.parseInt(size.trim());
+            while (inserted < count) {
+                List<Object[]> rows = new ArrayList<>();
+                for (int i = 0; i < Math.min(INSERT_CHUNK_SIZE, count - inserted); i++) {
+                    rows.add(new Object[]{"Item " + (inserted + i), makeDescription(random), ownerId});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO items (name, description, is_available, owner_id) " +
+                        "VALUES (?, ?, true, ?)", rows);
+                inserted += rows.size();
+            }
+            long started = System.nanoTime();
+            itemSearchIndex.rebuild();
+            log.info("{} items, index built in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+            for (String query : QUERIES) {
+                List<Long> expected = measure(count, query, "like query", () ->
+                        jdbcTemplate.queryForList("SELECT id FROM items WHERE is_available = true " +
+                                "AND UPPER(description) LIKE UPPER(?) ORDER BY id LIMIT ?", Long.class,
+                                "%" + query + "%", PAGE_SIZE));
+                List<Long> actual = measure(count, query, "trigram index", () -> {
+                    List<Long> ids = itemSearchIndex.search(query, 0, PAGE_SIZE);
+                    return itemRepository.findAllById(ids).stream()
+                        .map(Item::getId)
+                        .sorted()
+                        .collect(Collectors.toList());
+                });
+                assertThat(actual, equalTo(expected));
+            }
+        }
+    }
+
+    private List<Long> measure(int count, String query, String name, Supplier<List<Long>> search) {
+        List<Long> result = search.get();
+        int runs = 5;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            search.get();
+        }
+        log.info("{} items, '{}', {}: {} ms", count, query, name,
+                String.format("%.3f", (System.nanoTime() - started) / 1e6 / runs));
+        return result;
+    }
+
+    private String makeDescription(Random random) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                description.append(random.nextInt(4) == 0 ? "-" : " ");
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.toString();
+    }
+}
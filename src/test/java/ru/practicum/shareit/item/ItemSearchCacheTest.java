@@ -0,0 +1,110 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.util.ExpiringCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemSearchCacheTest {
+
+    private MutableClock clock;
+    private ItemSearchCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2030-01-01T00:00:00Z"));
+        cache = new ItemSearchCache(clock, Duration.ofSeconds(30), 2);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_servesPageUntilItExpires() {
+        cache.get("Drill", 0, 20, loader(1L));
+        List<ItemDto> items = cache.get("dRILL", 0, 20, loader(1L));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, items.get(0).getId());
+
+        cache.get("drill", 1, 20, loader(1L));
+        assertEquals(2, loads.get());
+
+        clock.advance(Duration.ofSeconds(31));
+        cache.get("drill", 0, 20, loader(1L));
+
+        assertEquals(3, loads.get());
+        assertEquals(new ExpiringCache.Stats(1, 3, 1, 2), cache.getStats());
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedPage() {
+        cache.get("drill", 0, 20, loader(1L));
+        cache.get("saw", 0, 20, loader(2L));
+        cache.get("drill", 0, 20, loader(1L));
+        cache.get("tent", 0, 20, loader(3L));
+
+        cache.get("drill", 0, 20, loader(1L));
+        cache.get("saw", 0, 20, loader(2L));
+
+        assertEquals(4, loads.get());
+        assertEquals(new ExpiringCache.Stats(2, 4, 2, 2), cache.getStats());
+    }
+
+    @Test
+    void invalidate_dropsOnlyQueriesFoundInText() {
+        cache.get("drill", 0, 20, loader(1L));
+        cache.get("saw", 0, 20, loader(2L));
+
+        cache.invalidate("Cordless DRILL", null);
+        cache.get("drill", 0, 20, loader(1L));
+        cache.get("saw", 0, 20, loader(2L));
+
+        assertEquals(3, loads.get());
+    }
+
+    private Supplier<List<ItemDto>> loader(long itemId) {
+        return () -> {
+            loads.incrementAndGet();
+            ItemDto itemDto = new ItemDto();
+            itemDto.setId(itemId);
+            return List.of(itemDto);
+        };
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSearchIndex index;
+
+    @Test
+    void rebuild_indexesNameAndDescription() {
+        when(itemRepository.getAvailableItemTexts(eq(0L), any()))
+                .thenReturn(List.of(new ItemText(1L, "Перфоратор-дрель", "Мощный, для бетона"),
+                        new ItemText(2L, "Saw", "Cordless circular saw"),
+                        new ItemText(3L, "Microwave", "Compact microwave oven")));
+
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        assertEquals(List.of(1L), index.search("ДРЕЛЬ"));
+        assertEquals(List.of(2L), index.search("less circ"));
+        assertEquals(List.of(2L, 3L), index.search("c"));
+        assertEquals(List.of(3L), index.search("wave"));
+        assertEquals(List.of(), index.search("saw oven"));
+        assertEquals(List.of(), index.search(""));
+    }
+
+    @Test
+    void search_confirmsCandidatesWithSubstringCheck() {
+        index.index(makeItem(1L, "Tool", "abcd xbcy", true));
+        index.index(makeItem(2L, "Tool", "xbcd", true));
+
+        assertEquals(List.of(2L), index.search("xbcd"));
+        assertEquals(List.of(1L, 2L), index.search("bcd"));
+    }
+
+    @Test
+    void search_stopsAtLimitAfterGivenId() {
+        for (long id = 1; id <= 10; id++) {
+            index.index(makeItem(id, "Tent " + id, "Camping tent", true));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), index.search("tent", 0, 3));
+        assertEquals(List.of(4L, 5L, 6L), index.search("tent", 3, 3));
+        assertEquals(List.of(9L, 10L), index.search("nt", 8, 5));
+        assertEquals(List.of(10L), index.search("tent 10", 0, 5));
+    }
+
+    @Test
+    void searchRanked_keepsBestHitsInScoreOrder() {
+        index.index(makeItem(1L, "Bag", "Bag for a tent", true));
+        index.index(makeItem(2L, "Tent", "Two person tent", true));
+        index.index(makeItem(3L, "Tent pegs", "Steel pegs", true));
+        index.index(makeItem(4L, "Lamp", "Camping lamp", true));
+        index.index(makeItem(5L, "Tent", "Two person tent", true));
+
+        assertEquals(List.of(2L, 5L, 3L, 1L), index.searchRanked("tent", 10, UnaryOperator.identity()));
+        assertEquals(List.of(2L, 5L), index.searchRanked("tent", 2, UnaryOperator.identity()));
+        assertEquals(List.of(5L, 3L), index.searchRanked("tent", 2, ids -> ids.stream()
+                .filter(id -> id != 2L)
+                .collect(Collectors.toList())));
+        assertEquals(List.of(4L), index.searchRanked("camping lamp", 10, UnaryOperator.identity()));
+    }
+
+    @Test
+    void suggest_returnsMostCommonNamesForPrefix() {
+        index.index(makeItem(1L, "Drill", "Power drill", true));
+        index.index(makeItem(2L, "drill", "Old drill", true));
+        index.index(makeItem(3L, "Drill press", "Bench drill", true));
+        index.index(makeItem(4L, "Dryer", "Hair dryer", true));
+        index.index(makeItem(5L, "Saw", "Circular saw", true));
+
+        assertEquals(List.of("drill", "Drill press", "Dryer"), index.suggest("D", 10));
+        assertEquals(List.of("drill", "Drill press"), index.suggest("dri", 10));
+        assertEquals(List.of("Drill press"), index.suggest("drill ", 10));
+        assertEquals(List.of("drill"), index.suggest("dr", 1));
+        assertEquals(List.of(), index.suggest("x", 10));
+        assertEquals(List.of(), index.suggest(" ", 10));
+
+        index.remove(1L);
+        index.remove(2L);
+
+        assertEquals(List.of("Drill press", "Dryer"), index.suggest("dr", 10));
+    }
+
+    @Test
+    void index_replacesTextAndDropsUnavailableItems() {
+        Item item = makeItem(5L, "Drill", "Power drill", true);
+        index.index(item);
+        index.index(makeItem(4L, "Hammer drill", "Heavy drill", true));
+
+        assertEquals(List.of(4L, 5L), index.search("drill"));
+
+        item.setDescription("Cordless screwdriver");
+        item.setName("Screwdriver");
+        index.index(item);
+
+        assertEquals(List.of(4L), index.search("drill"));
+        assertEquals(List.of(5L), index.search("screw"));
+
+        item.setAvailable(false);
+        index.index(item);
+        index.remove(4L);
+
+        assertEquals(List.of(), index.search("screw"));
+        assertEquals(List.of(), index.search("dr"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void index_undoesChangesInReverseOrderOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Item item = makeItem(1L, "Drill", "Power drill", true);
+            index.index(item);
+            item.setAvailable(false);
+            index.index(item);
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(), index.search("drill"));
+        assertEquals(0, index.size());
+    }
+
+    private Item makeItem(long id, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return item;
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +10,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import ru.practicum.shareit.booking.*;
 import ru.practicum.shareit.config.PersistenceConfig;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.request.RequestDto;
 import ru.practicum.shareit.request.RequestService;
@@ -33,7 +36,8 @@ import static ru.practicum.shareit.item.CommentMapper.mapToCommentsDto;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @TestPropertySource(properties = {"db.name=test"})
 @SpringJUnitConfig({PersistenceConfig.class, UserServiceImpl.class, RequestServiceImpl.class,
-        ItemServiceImpl.class, BookingServiceImpl.class})
+        ItemServiceImpl.class, BookingServiceImpl.class, BookingIntervalIndex.class, BookingHolds.class,
+        ItemSearchIndex.class, ItemSearchCache.class, ItemViewCache.class})
 class ItemServiceImplTest {
 
     private final EntityManager em;
@@ -41,6 +45,8 @@ class ItemServiceImplTest {
     private final RequestService requestService;
     private final ItemService itemService;
     private final BookingService bookingService;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemViewCache itemViewCache;
 
     @Test
     void addItem() {
@@ -200,6 +206,38 @@ class ItemServiceImplTest {
         assertThat(requestDto.getId(), equalTo(getItemDto.getRequestId()));
     }
 
+    @Test
+    void getItem_cachedUntilBookingOrCommentChanges() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true, null));
+        itemService.getItem(userDto.getId(), itemDto.getId());
+        long hits = itemViewCache.getStats().getHits();
+
+        itemService.getItem(bookerDto.getId(), itemDto.getId());
+
+        assertThat(itemViewCache.getStats().getHits(), equalTo(hits + 1));
+
+        BookingDto nextBookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2)));
+        bookingService.approveBooking(userDto.getId(), nextBookingDto.getId(), true);
+
+        assertThat(itemService.getItem(userDto.getId(), itemDto.getId()).getNextBooking().getId(),
+                equalTo(nextBookingDto.getId()));
+        assertThat(itemService.getItem(bookerDto.getId(), itemDto.getId()).getNextBooking(), nullValue());
+
+        BookingDto lastBookingDto = bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto,
+                LocalDateTime.now().minusSeconds(2), LocalDateTime.now().minusSeconds(1)));
+        bookingService.approveBooking(userDto.getId(), lastBookingDto.getId(), true);
+        itemService.addComment(bookerDto.getId(), itemDto.getId(), makeCommentDto("Cool"));
+        ItemDto ownerView = itemService.getItem(userDto.getId(), itemDto.getId());
+
+        assertThat(ownerView.getLastBooking().getId(), equalTo(lastBookingDto.getId()));
+        assertThat(ownerView.getComments().size(), equalTo(1));
+        assertThat(itemService.getItem(bookerDto.getId(), itemDto.getId()).getLastBooking(), nullValue());
+    }
+
     @Test
     void getItem_404_item_not_found() {
         assertThatThrownBy(() -> itemService.deleteItem(1L, 1L))
@@ -231,6 +269,52 @@ class ItemServiceImplTest {
         assertThat(items.get(0).getAvailable(), equalTo(sourceItems.get(1).getAvailable()));
     }
 
+    @Test
+    void getAvailability() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto itemDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true, null));
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        BookingDto approvedDto = bookingService.addBooking(bookerDto.getId(),
+                makeBookingDto(bookerDto, itemDto, base.plusDays(1), base.plusDays(2)));
+        bookingService.approveBooking(userDto.getId(), approvedDto.getId(), true);
+        bookingService.addBooking(bookerDto.getId(), makeBookingDto(bookerDto, itemDto, base.plusDays(3),
+                base.plusDays(4)));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+        List<FreeIntervalDto> approvedOnly = itemService.getAvailability(itemDto.getId(), base.format(formatter),
+                base.plusDays(5).format(formatter), false);
+        List<FreeIntervalDto> withWaiting = itemService.getAvailability(itemDto.getId(), base.format(formatter),
+                base.plusDays(5).format(formatter), true);
+
+        assertThat(approvedOnly, equalTo(List.of(
+                new FreeIntervalDto(base.format(formatter), base.plusDays(1).format(formatter)),
+                new FreeIntervalDto(base.plusDays(2).format(formatter), base.plusDays(5).format(formatter)))));
+        assertThat(withWaiting, equalTo(List.of(
+                new FreeIntervalDto(base.format(formatter), base.plusDays(1).format(formatter)),
+                new FreeIntervalDto(base.plusDays(2).format(formatter), base.plusDays(3).format(formatter)),
+                new FreeIntervalDto(base.plusDays(4).format(formatter), base.plusDays(5).format(formatter)))));
+    }
+
+    @Test
+    void getAvailability_400_wrong_dates() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        ItemDto itemDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true, null));
+
+        assertThatThrownBy(() -> itemService.getAvailability(itemDto.getId(), "2030-01-02T00:00:00",
+                "2030-01-01T00:00:00", false))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Wrong dates.");
+        assertThatThrownBy(() -> itemService.getAvailability(itemDto.getId(), "tomorrow", null, false))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Wrong dates.");
+        assertThatThrownBy(() -> itemService.getAvailability(itemDto.getId() + 1000, null, null, false))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Item not found.");
+    }
+
     @Test
     void search() {
         // given & when
@@ -245,7 +329,7 @@ class ItemServiceImplTest {
         itemService.addItem(userDto.getId(), sourceItems.get(0));
         itemService.addItem(userDto.getId(), sourceItems.get(1));
 
-        List<ItemDto> items = itemService.search("color", 0, 1);
+        List<ItemDto> items = itemService.search("color", null, null, 0, 1);
 
         assertThat(items.size(), equalTo(1));
         assertThat(items.get(0).getId(), notNullValue());
@@ -255,6 +339,149 @@ class ItemServiceImplTest {
         assertThat(items.get(0).getAvailable(), equalTo(sourceItems.get(1).getAvailable()));
     }
 
+    @Test
+    void search_loadsPageInOneQuery() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < 25; i++) {
+            ItemDto itemDto = itemService.addItem(userDto.getId(),
+                    makeItemDto("Tent " + i, "Camping tent", true, null));
+            BookingDto bookingDto = bookingService.addBooking(bookerDto.getId(),
+                    makeBookingDto(bookerDto, itemDto, base.plusDays(i + 1), base.plusDays(i + 2)));
+            bookingService.approveBooking(userDto.getId(), bookingDto.getId(), true);
+        }
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<ItemDto> items = itemService.search("tent", null, null, 0, 20);
+
+        long statements = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+        assertThat(items.size(), equalTo(20));
+        assertThat(statements, equalTo(1L));
+        assertThat(items.stream().allMatch(item -> item.getLastBooking() == null && item.getNextBooking() == null),
+                equalTo(true));
+    }
+
+    @Test
+    void search_ranksNameMatchesFirst() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        ItemDto caseDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Hard case", "Case for a cordless drill and bits", true, null));
+        ItemDto drillDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Cordless drill", "Two batteries included", true, null));
+
+        List<ItemDto> items = itemService.search("drill", null, null, 0, 10);
+
+        assertThat(items.size(), equalTo(2));
+        assertThat(items.get(0).getId(), equalTo(drillDto.getId()));
+        assertThat(items.get(1).getId(), equalTo(caseDto.getId()));
+        assertThat(itemService.search("drill", null, null, 1, 1).get(0).getId(), equalTo(caseDto.getId()));
+    }
+
+    @Test
+    void suggest_tracksItemChanges() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        ItemDto itemDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Thermos", "Keeps tea hot", true, null));
+        itemService.addItem(userDto.getId(), makeItemDto("Thermometer", "Digital thermometer", true, null));
+
+        assertThat(itemService.suggest("therm", 10), equalTo(List.of("Thermometer", "Thermos")));
+
+        ItemDto updateDto = new ItemDto();
+        updateDto.setAvailable(false);
+        itemService.updateItem(userDto.getId(), itemDto.getId(), updateDto);
+
+        assertThat(itemService.suggest("THERM", 10), equalTo(List.of("Thermometer")));
+        assertThatThrownBy(() -> itemService.suggest("therm", 0))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Non-positive size: 0");
+    }
+
+    @Test
+    void search_tracksItemChanges() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        ItemDto itemDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Thermos", "Keeps tea hot", true, null));
+
+        assertThat(itemService.search("thermos", null, null, 0, 10).size(), equalTo(1));
+        assertThat(itemService.search("ps te", null, null, 0, 10).size(), equalTo(1));
+
+        ItemDto updateDto = new ItemDto();
+        updateDto.setDescription("Keeps coffee hot");
+        itemService.updateItem(userDto.getId(), itemDto.getId(), updateDto);
+
+        assertThat(itemService.search("tea", null, null, 0, 10).size(), equalTo(0));
+        assertThat(itemService.search("COFFEE HOT", null, null, 0, 10).size(), equalTo(1));
+
+        itemService.deleteItem(userDto.getId(), itemDto.getId());
+
+        assertThat(itemService.search("thermos", null, null, 0, 10).size(), equalTo(0));
+    }
+
+    @Test
+    void search_cachedUntilMatchingItemChanges() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        ItemDto thermosDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Thermos", "Keeps tea hot", true, null));
+        ItemDto kettleDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Kettle", "Boils water", true, null));
+        itemService.search("thermos", null, null, 0, 10);
+        long hits = itemSearchCache.getStats().getHits();
+
+        itemService.search("THERMOS", null, null, 0, 10);
+        ItemDto updateDto = new ItemDto();
+        updateDto.setDescription("Boils water fast");
+        itemService.updateItem(userDto.getId(), kettleDto.getId(), updateDto);
+        itemService.search("thermos", null, null, 0, 10);
+
+        assertThat(itemSearchCache.getStats().getHits(), equalTo(hits + 2));
+
+        updateDto.setDescription("Keeps coffee hot");
+        itemService.updateItem(userDto.getId(), thermosDto.getId(), updateDto);
+        List<ItemDto> items = itemService.search("thermos", null, null, 0, 10);
+
+        assertThat(itemSearchCache.getStats().getHits(), equalTo(hits + 2));
+        assertThat(items.get(0).getDescription(), equalTo("Keeps coffee hot"));
+    }
+
+    @Test
+    void search_free_dates() {
+        UserDto userDto = userService.addUser(makeUserDto("Alexey", "alexey@ya.ru"));
+        UserDto bookerDto = userService.addUser(makeUserDto("Ilya", "ilya@ya.ru"));
+        ItemDto bookedDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Microwave oven", "Power compact microwave oven", true, null));
+        ItemDto freeDto = itemService.addItem(userDto.getId(),
+                makeItemDto("Steam oven", "Compact steam oven", true, null));
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        BookingDto bookingDto = bookingService.addBooking(bookerDto.getId(),
+                makeBookingDto(bookerDto, bookedDto, base.plusDays(1), base.plusDays(3)));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+        assertThat(itemService.search("oven", base.plusDays(2).format(formatter),
+                base.plusDays(4).format(formatter), 0, 10).size(), equalTo(2));
+
+        bookingService.approveBooking(userDto.getId(), bookingDto.getId(), true);
+        List<ItemDto> items = itemService.search("oven", base.plusDays(2).format(formatter),
+                base.plusDays(4).format(formatter), 0, 10);
+
+        assertThat(items.size(), equalTo(1));
+        assertThat(items.get(0).getId(), equalTo(freeDto.getId()));
+        assertThat(itemService.search("oven", base.plusDays(3).format(formatter),
+                base.plusDays(4).format(formatter), 0, 10).size(), equalTo(2));
+        assertThat(itemService.search("oven", base.plusDays(3).format(formatter),
+                base.plusDays(4).format(formatter), 0, 1).get(0).getId(), equalTo(freeDto.getId()));
+        assertThat(itemService.search("oven", base.plusDays(3).format(formatter),
+                base.plusDays(4).format(formatter), 1, 1).get(0).getId(), equalTo(bookedDto.getId()));
+        assertThatThrownBy(() -> itemService.search("oven", base.format(formatter), null, 0, 10))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Wrong dates.");
+    }
+
     @Test
     void addComment() throws InterruptedException {
         // given & when
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.BookingShotDto;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ItemViewCacheTest {
+
+    private MutableClock clock;
+    private ItemViewCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2030-01-01T00:00:00Z"));
+        cache = new ItemViewCache(clock, Duration.ofMinutes(10), 100);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_expiresWhenNextBookingStarts() {
+        LocalDateTime nextStart = LocalDateTime.of(2030, 1, 1, 0, 5);
+
+        cache.get(1L, loader(nextStart));
+        clock.advance(Duration.ofMinutes(4));
+        cache.get(1L, loader(nextStart));
+
+        assertEquals(1, loads.get());
+
+        clock.advance(Duration.ofMinutes(1));
+        cache.get(1L, loader(nextStart));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_showsBookingsToOwnerOnly() {
+        ItemView view = cache.get(1L, loader(null));
+
+        assertEquals(new BookingShotDto(3L, 4L), view.toItemDto(2L).getLastBooking());
+        assertNull(view.toItemDto(4L).getLastBooking());
+        assertEquals(Set.of(), view.toItemDto(4L).getComments());
+    }
+
+    @Test
+    void invalidate_dropsOnlyTheItem() {
+        cache.get(1L, loader(null));
+        cache.get(2L, loader(null));
+
+        cache.invalidate(1L);
+        cache.get(1L, loader(null));
+        cache.get(2L, loader(null));
+
+        assertEquals(3, loads.get());
+    }
+
+    private Supplier<ItemView> loader(LocalDateTime nextStart) {
+        return () -> {
+            loads.incrementAndGet();
+            ItemDto itemDto = new ItemDto(1L, 2L, "Drill", "Cordless drill", true, null, null, null, Set.of());
+            return new ItemView(itemDto, 2L, new BookingShotDto(3L, 4L), null, nextStart);
+        };
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -9,9 +9,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
@@ -134,7 +134,7 @@ class RequestRepositoryTest {
         newRequest = requestRepository.save(newRequest);
 
         Pageable pageable = PageRequest.of(0, 1);
-        Page<Request> requests = requestRepository.getRequestsByParam(requester.getId(), pageable);
+        Slice<Request> requests = requestRepository.getRequestsByParam(requester.getId(), pageable);
         assertEquals(1, requests.getSize());
         assertEquals(newRequest.getId(), requests.getContent().get(0).getId());
         assertEquals(newRequest.getDescription(), requests.getContent().get(0).getDescription());